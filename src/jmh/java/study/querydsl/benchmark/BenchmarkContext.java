@@ -0,0 +1,67 @@
+package study.querydsl.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.entity.Team;
+import study.querydsl.service.BulkInsertService;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 + 인메모리 h2
+ * 회원 n명, 팀 n/100개 (회원 이름 member{i}, 나이 i % 100, 팀 이름 team{i})
+ */
+public class BenchmarkContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static BenchmarkContext start(int members, String... properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=warn",
+                        //p6spy 로깅/카운팅, 쿼리 메트릭 비용이 측정값에 섞이지 않게 한다
+                        "decorator.datasource.enabled=false",
+                        "query-metrics.enabled=false")
+                .properties(properties)
+                .run();
+        BenchmarkContext benchmarkContext = new BenchmarkContext(context);
+        benchmarkContext.load(members);
+        return benchmarkContext;
+    }
+
+    private void load(int members) {
+        BulkInsertService bulkInsertService = context.getBean(BulkInsertService.class);
+        List<Team> teams = IntStream.range(0, Math.max(members / 100, 1))
+                .mapToObj(i -> new Team("team" + i))
+                .toList();
+        bulkInsertService.persistAll(teams.stream());
+        bulkInsertService.insertMembers(IntStream.range(0, members)
+                .mapToObj(i -> new MemberRow("member" + i, i % 100, teams.get(i % teams.size()).getId())));
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    //트랜잭션 없이 읽기만 하는 애플리케이션 관리 EntityManager (호출마다 clear 해서 사용)
+    public EntityManager createEntityManager() {
+        return context.getBean(EntityManagerFactory.class).createEntityManager();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,112 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.support.FastProjections;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * QuerydslBasicTest에서 쓰는 패턴들을 그대로 옮긴 쿼리
+ * 빈 JPAQuery를 받아서 완성된 쿼리를 돌려준다 (생성 비용만 재거나, 실행까지 재거나 같은 코드를 쓴다)
+ */
+final class BenchmarkQueries {
+
+    static final int LIMIT = 100;
+
+    private BenchmarkQueries() {
+    }
+
+    static JPAQuery<Member> simpleWhere(JPAQuery<Void> q) {
+        return q.select(member)
+                .from(member)
+                .where(member.username.eq("member1")
+                        .and(member.age.between(0, 30)));
+    }
+
+    static JPAQuery<Member> join(JPAQuery<Void> q) {
+        return q.select(member)
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("team0"))
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<Member> fetchJoin(JPAQuery<Void> q) {
+        return q.select(member)
+                .from(member)
+                .join(member.team, team).fetchJoin()
+                .where(member.age.goe(50))
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<Member> subQuery(JPAQuery<Void> q) {
+        QMember memberSub = new QMember("memberSub");
+        return q.select(member)
+                .from(member)
+                .where(member.age.eq(
+                        JPAExpressions.select(memberSub.age.max())
+                                .from(memberSub)))
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<Tuple> caseBuilder(JPAQuery<Void> q) {
+        return q.select(member.username, new CaseBuilder()
+                        .when(member.age.between(0, 20)).then("0~20살")
+                        .when(member.age.between(21, 30)).then("21살~30살")
+                        .otherwise("기타"))
+                .from(member)
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<MemberDto> projectionBean(JPAQuery<Void> q) {
+        return q.select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<UserDto> projectionFields(JPAQuery<Void> q) {
+        return q.select(Projections.fields(UserDto.class, member.username.as("name"), member.age))
+                .from(member)
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<MemberDto> projectionConstructor(JPAQuery<Void> q) {
+        return q.select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<MemberDto> fastBean(JPAQuery<Void> q) {
+        return q.select(FastProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<UserDto> fastFields(JPAQuery<Void> q) {
+        return q.select(FastProjections.fields(UserDto.class, member.username.as("name"), member.age))
+                .from(member)
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<MemberDto> fastConstructor(JPAQuery<Void> q) {
+        return q.select(FastProjections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .limit(LIMIT);
+    }
+
+    static JPAQuery<MemberDto> queryProjection(JPAQuery<Void> q) {
+        return q.select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .limit(LIMIT);
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.service.BulkMutationService;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 10만 명의 나이를 한 번에 바꾸는 비용
+ * 엔티티를 읽어서 변경 감지(행마다 update, jdbc 배치) vs BulkMutationService (chunk 마다 update 한 번)
+ * 호출 한 번이 10만 건이라 SingleShotTime 으로 잰다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class BulkMutationBenchmark {
+
+    static final int MEMBERS = 100_000;
+
+    @Param({"1000", "10000"})
+    int chunkSize;
+
+    BenchmarkContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    BulkMutationService bulkMutationService;
+    TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(MEMBERS, "bulk-mutation.chunk-size=" + chunkSize);
+        em = context.getBean(EntityManager.class);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        bulkMutationService = context.getBean(BulkMutationService.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long dirtyChecking() {
+        return tx.execute(status -> {
+            long count = 0;
+            Iterator<Member> iterator = queryFactory.selectFrom(member).stream().iterator();
+            while (iterator.hasNext()) {
+                Member m = iterator.next();
+                m.setAge(m.getAge() + 1);
+                if (++count % chunkSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            return count;
+        });
+    }
+
+    //트랜잭션 밖에서 부르므로 chunk 마다 커밋된다
+    @Benchmark
+    public long bulkUpdate() {
+        return bulkMutationService.shiftAge(null, 1);
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.repository.support.ColumnarQueries;
+import study.querydsl.repository.support.ColumnarResult;
+import study.querydsl.repository.support.IntGroups;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 100만 명의 (username, age, team.name) 을 List<Tuple> 로 받을 때와 컬럼(int[] + 사전)으로 받을 때
+ * fetch 만 / 팀별 count, sum, min, max 까지. 호출당 할당량은 -PjmhProfilers=gc
+ * ./gradlew jmh -PjmhIncludes=ColumnarBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class ColumnarBenchmark {
+
+    static final int MEMBERS = 1_000_000;
+
+    BenchmarkContext context;
+    JPAQueryFactory queryFactory;
+    ColumnarQueries columnarQueries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(MEMBERS);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        columnarQueries = context.getBean(ColumnarQueries.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Tuple> tupleFetch() {
+        return queryFactory
+                .select(member.username, member.age, team.name)
+                .from(member)
+                .join(member.team, team)
+                .fetch();
+    }
+
+    @Benchmark
+    public ColumnarResult columnarFetch() {
+        return columnarQueries.fetch(queryFactory
+                .from(member)
+                .join(member.team, team), member.username, member.age, team.name);
+    }
+
+    @Benchmark
+    public Map<String, long[]> tupleGroupBy() {
+        Map<String, long[]> groups = new HashMap<>();
+        for (Tuple row : tupleFetch()) {
+            int age = row.get(member.age);
+            long[] group = groups.computeIfAbsent(row.get(team.name), k -> new long[]{0, 0, Long.MAX_VALUE, Long.MIN_VALUE});
+            group[0]++;
+            group[1] += age;
+            group[2] = Math.min(group[2], age);
+            group[3] = Math.max(group[3], age);
+        }
+        return groups;
+    }
+
+    @Benchmark
+    public IntGroups columnarGroupBy() {
+        ColumnarResult result = columnarQueries.fetch(queryFactory
+                .from(member)
+                .join(member.team, team), team.name, member.age);
+        return IntGroups.of(result.strings(team.name), result.ints(member.age));
+    }
+}
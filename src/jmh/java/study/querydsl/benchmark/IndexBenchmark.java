@@ -0,0 +1,114 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.entity.Member;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 100만 명에서 Member/Team 인덱스가 있을 때와 뺐을 때의 조회 시간
+ * ./gradlew jmh -PjmhIncludes=IndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class IndexBenchmark {
+
+    static final int MEMBERS = 1_000_000;
+    static final List<String> INDEXES = List.of(
+            "idx_member_username_age", "idx_member_age_username", "idx_member_team_id", "idx_team_name");
+
+    @Param({"indexed", "dropped"})
+    String indexes;
+
+    BenchmarkContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    Long teamId;
+    int i;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(MEMBERS);
+        if (indexes.equals("dropped")) {
+            dropIndexes(new JdbcTemplate(context.getBean(DataSource.class)));
+        }
+        em = context.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+        teamId = queryFactory.select(team.id).from(team).where(team.name.eq("team5")).fetchOne();
+    }
+
+    /*
+     * 하이버네이트는 인덱스를 만든 뒤에 fk 를 걸기 때문에 h2 는 idx_member_team_id 를 team_id fk 의 인덱스로 같이 쓴다
+     * 그대로 지우면 "index belongs to constraint" 로 실패하므로 fk 를 먼저 뺀다
+     * fk 를 다시 걸면 h2 가 team_id 인덱스를 새로 만들어서 "인덱스 없음"을 잴 수 없으므로 이 trial 에서는 fk 없이 읽기만 한다
+     */
+    private void dropIndexes(JdbcTemplate jdbcTemplate) {
+        List<String> foreignKeys = jdbcTemplate.queryForList(
+                "select constraint_name from information_schema.table_constraints" +
+                        " where table_name = 'MEMBER' and constraint_type = 'FOREIGN KEY'", String.class);
+        foreignKeys.forEach(fk -> jdbcTemplate.execute("alter table member drop constraint " + fk));
+        INDEXES.forEach(index -> jdbcTemplate.execute("drop index " + index));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public Member byUsername() {
+        Member result = queryFactory
+                .selectFrom(member)
+                .where(member.username.eq("member" + (i++ % MEMBERS)))
+                .fetchOne();
+        em.clear();
+        return result;
+    }
+
+    //QuerydslBasicTest.sort() 형태
+    @Benchmark
+    public List<Member> byAgeSorted() {
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(i++ % 100))
+                .orderBy(member.age.desc(), member.username.asc().nullsLast())
+                .limit(100)
+                .fetch();
+        em.clear();
+        return result;
+    }
+
+    @Benchmark
+    public List<Member> membersOfTeam() {
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .where(member.team.id.eq(teamId))
+                .fetch();
+        em.clear();
+        return result;
+    }
+
+    @Benchmark
+    public List<Member> joinTeamByName() {
+        List<Member> result = queryFactory
+                .select(member)
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq("team" + (i++ % (MEMBERS / 100))))
+                .fetch();
+        em.clear();
+        return result;
+    }
+}
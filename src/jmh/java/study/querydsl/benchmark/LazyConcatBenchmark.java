@@ -0,0 +1,63 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.repository.support.LazyConcat;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 1만 명의 basicConcat 식(username_age)을 조회해서 json 으로 쓰기까지
+ * db 에서 cast/concat 하는 경우와 컬럼만 가져와서 LazyConcat 으로 붙이는 경우. 할당량은 -PjmhProfilers=gc
+ * ./gradlew jmh -PjmhIncludes=LazyConcatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class LazyConcatBenchmark {
+
+    static final int MEMBERS = 10_000;
+    static final StringExpression LABEL = member.username.concat("_").concat(member.age.stringValue());
+
+    BenchmarkContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(MEMBERS);
+        em = context.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+        objectMapper = context.getBean(ObjectMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] dbConcat() throws Exception {
+        return write(queryFactory.select(LABEL).from(member).fetch());
+    }
+
+    @Benchmark
+    public byte[] lazyConcat() throws Exception {
+        return write(queryFactory.select(LazyConcat.of(LABEL)).from(member).fetch());
+    }
+
+    private byte[] write(List<?> rows) throws Exception {
+        em.clear();
+        return objectMapper.writeValueAsBytes(rows);
+    }
+}
@@ -0,0 +1,64 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.PreparedQuery;
+import study.querydsl.repository.support.PreparedQueryFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 매번 JPAQueryFactory로 쿼리를 만드는 방식 vs PreparedQuery
+ * 호출당 할당량은 -PjmhProfilers=gc 의 gc.alloc.rate.norm 으로 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PreparedQueryBenchmark {
+
+    static final Param<String> USERNAME = new Param<>(String.class, "username");
+
+    BenchmarkContext context;
+    JPAQueryFactory queryFactory;
+    PreparedQuery<Member> prepared;
+    TransactionTemplate tx;
+    int i;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(1_000);
+        //리포지토리에서 쓰는 것처럼 스프링이 관리하는 EntityManager + 읽기 전용 트랜잭션
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        prepared = context.getBean(PreparedQueryFactory.class).prepare(queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(USERNAME), member.age.goe(0)));
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Member adHoc() {
+        String username = "member" + (i++ % 1_000);
+        return tx.execute(status -> queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username), member.age.goe(0))
+                .fetchOne());
+    }
+
+    @Benchmark
+    public Member prepared() {
+        String username = "member" + (i++ % 1_000);
+        return tx.execute(status -> prepared.with(USERNAME, username).fetchOne());
+    }
+}
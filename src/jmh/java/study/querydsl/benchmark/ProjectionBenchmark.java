@@ -0,0 +1,74 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.repository.support.FastProjections;
+
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 행 하나를 dto로 만드는 비용 (db 없이 newInstance만)
+ * 리플렉션 기반 Projections vs MethodHandle 기반 FastProjections. 할당량은 -PjmhProfilers=gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    FactoryExpression<MemberDto> qBean = Projections.bean(MemberDto.class, member.username, member.age);
+    FactoryExpression<UserDto> qFields = Projections.fields(UserDto.class, member.username.as("name"), member.age);
+    FactoryExpression<MemberDto> qConstructor = Projections.constructor(MemberDto.class, member.username, member.age);
+    FactoryExpression<MemberDto> queryProjection = new QMemberDto(member.username, member.age);
+
+    FactoryExpression<MemberDto> fastBean = FastProjections.bean(MemberDto.class, member.username, member.age);
+    FactoryExpression<UserDto> fastFields = FastProjections.fields(UserDto.class, member.username.as("name"), member.age);
+    FactoryExpression<MemberDto> fastConstructor = FastProjections.constructor(MemberDto.class, member.username, member.age);
+
+    int age;
+
+    //하이버네이트가 넘겨주는 것처럼 행마다 새 배열
+    private Object[] row() {
+        return new Object[]{"member1", age++ & 127};
+    }
+
+    @Benchmark
+    public MemberDto reflectionBean() {
+        return qBean.newInstance(row());
+    }
+
+    @Benchmark
+    public MemberDto methodHandleBean() {
+        return fastBean.newInstance(row());
+    }
+
+    @Benchmark
+    public UserDto reflectionFields() {
+        return qFields.newInstance(row());
+    }
+
+    @Benchmark
+    public UserDto methodHandleFields() {
+        return fastFields.newInstance(row());
+    }
+
+    @Benchmark
+    public MemberDto reflectionConstructor() {
+        return qConstructor.newInstance(row());
+    }
+
+    @Benchmark
+    public MemberDto queryProjection() {
+        return queryProjection.newInstance(row());
+    }
+
+    @Benchmark
+    public MemberDto methodHandleConstructor() {
+        return fastConstructor.newInstance(row());
+    }
+}
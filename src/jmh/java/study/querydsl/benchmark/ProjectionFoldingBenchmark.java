@@ -0,0 +1,61 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.repository.support.ProjectionFolding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 1만 명의 complexConstant 형태 조회 (username, age + n, 상수)
+ * n 이 호출마다 달라서 그대로 보내면 jpql 이 매번 다르다. folded 는 상수를 빼서 jpql 이 하나
+ * ./gradlew jmh -PjmhIncludes=ProjectionFoldingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class ProjectionFoldingBenchmark {
+
+    static final int MEMBERS = 10_000;
+
+    @Param({"original", "folded"})
+    String mode;
+
+    BenchmarkContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    int n;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(MEMBERS);
+        em = context.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Tuple> complexConstant() {
+        int addend = n++ & 1023;
+        JPAQuery<Tuple> query = queryFactory
+                .select(member.username, member.age.add(Expressions.constant(addend)), Expressions.constant("A"))
+                .from(member);
+        List<Tuple> result = (mode.equals("folded") ? ProjectionFolding.fold(query) : query).fetch();
+        em.clear();
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * db 없이 querydsl 식 트리를 만드는 비용(BUILD)과 jpql로 직렬화하는 비용(SERIALIZE)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryBuildingBenchmark {
+
+    public enum Phase { BUILD, SERIALIZE }
+
+    @Param({"BUILD", "SERIALIZE"})
+    Phase phase;
+
+    private JPAQuery<Void> query() {
+        return new JPAQuery<>((EntityManager) null, HQLTemplates.DEFAULT);
+    }
+
+    private Object finish(JPAQuery<?> query) {
+        return phase == Phase.SERIALIZE ? query.toString() : query;
+    }
+
+    @Benchmark
+    public Object simpleWhere() {
+        return finish(BenchmarkQueries.simpleWhere(query()));
+    }
+
+    @Benchmark
+    public Object join() {
+        return finish(BenchmarkQueries.join(query()));
+    }
+
+    @Benchmark
+    public Object fetchJoin() {
+        return finish(BenchmarkQueries.fetchJoin(query()));
+    }
+
+    @Benchmark
+    public Object subQuery() {
+        return finish(BenchmarkQueries.subQuery(query()));
+    }
+
+    @Benchmark
+    public Object caseBuilder() {
+        return finish(BenchmarkQueries.caseBuilder(query()));
+    }
+
+    @Benchmark
+    public Object projectionBean() {
+        return finish(BenchmarkQueries.projectionBean(query()));
+    }
+
+    @Benchmark
+    public Object projectionFields() {
+        return finish(BenchmarkQueries.projectionFields(query()));
+    }
+
+    @Benchmark
+    public Object projectionConstructor() {
+        return finish(BenchmarkQueries.projectionConstructor(query()));
+    }
+
+    @Benchmark
+    public Object queryProjection() {
+        return finish(BenchmarkQueries.queryProjection(query()));
+    }
+}
@@ -0,0 +1,106 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 같은 패턴을 인메모리 h2에 실제로 실행 (회원 수별)
+ * 목록 조회는 BenchmarkQueries.LIMIT 건으로 잘라서 결과 크기가 아니라 쿼리 형태의 차이를 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryExecutionBenchmark {
+
+    @Param({"1000", "100000"})
+    int members;
+
+    BenchmarkContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(members);
+        em = context.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    private <T> List<T> run(Function<JPAQuery<Void>, JPAQuery<T>> pattern) {
+        List<T> result = pattern.apply(queryFactory.query()).fetch();
+        em.clear();
+        return result;
+    }
+
+    @Benchmark
+    public Object simpleWhere() {
+        return run(BenchmarkQueries::simpleWhere);
+    }
+
+    @Benchmark
+    public Object join() {
+        return run(BenchmarkQueries::join);
+    }
+
+    @Benchmark
+    public Object fetchJoin() {
+        return run(BenchmarkQueries::fetchJoin);
+    }
+
+    @Benchmark
+    public Object subQuery() {
+        return run(BenchmarkQueries::subQuery);
+    }
+
+    @Benchmark
+    public Object caseBuilder() {
+        return run(BenchmarkQueries::caseBuilder);
+    }
+
+    @Benchmark
+    public Object projectionBean() {
+        return run(BenchmarkQueries::projectionBean);
+    }
+
+    @Benchmark
+    public Object projectionFields() {
+        return run(BenchmarkQueries::projectionFields);
+    }
+
+    @Benchmark
+    public Object projectionConstructor() {
+        return run(BenchmarkQueries::projectionConstructor);
+    }
+
+    @Benchmark
+    public Object fastBean() {
+        return run(BenchmarkQueries::fastBean);
+    }
+
+    @Benchmark
+    public Object fastFields() {
+        return run(BenchmarkQueries::fastFields);
+    }
+
+    @Benchmark
+    public Object fastConstructor() {
+        return run(BenchmarkQueries::fastConstructor);
+    }
+
+    @Benchmark
+    public Object queryProjection() {
+        return run(BenchmarkQueries::queryProjection);
+    }
+}
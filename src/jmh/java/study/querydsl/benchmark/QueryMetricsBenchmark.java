@@ -0,0 +1,32 @@
+package study.querydsl.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.monitoring.QueryMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 쿼리 한 번을 기록하는 비용 (형태 찾기 + 타이머/분포 기록). 할당량은 -PjmhProfilers=gc
+ * jpql 은 쿼리마다 새로 직렬화된 문자열이 들어오므로 매번 새 String 으로 넣는다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryMetricsBenchmark {
+
+    static final String JPQL = "select member1\nfrom Member member1\nwhere member1.username = ?1";
+
+    QueryMetrics metrics;
+
+    @Setup
+    public void setUp() {
+        metrics = new QueryMetrics(new SimpleMeterRegistry(), 500);
+        metrics.record(JPQL, 1_000, 1);
+    }
+
+    @Benchmark
+    public void record() {
+        metrics.record(new String(JPQL), 250_000, 10);
+    }
+}
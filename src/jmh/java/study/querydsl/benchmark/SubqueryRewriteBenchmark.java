@@ -0,0 +1,89 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.repository.support.SubqueryRewriter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 회원 10만 명에서 서브쿼리를 그대로 보낼 때와 SubqueryRewriter 를 거칠 때 (바꾸는 비용 + 미리 실행하는 서브쿼리 포함)
+ * ./gradlew jmh -PjmhIncludes=SubqueryRewriteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class SubqueryRewriteBenchmark {
+
+    static final int MEMBERS = 100_000;
+    static final QMember memberSub = new QMember("memberSub");
+
+    @Param({"original", "rewritten"})
+    String mode;
+
+    BenchmarkContext context;
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+    SubqueryRewriter rewriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(MEMBERS);
+        em = context.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+        rewriter = new SubqueryRewriter(em, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    //subQueryGoe 형태: 평균 나이 이상인 회원
+    @Benchmark
+    public List<Member> scalarGoe() {
+        return run(queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(select(memberSub.age.avg()).from(memberSub)))
+                .orderBy(member.age.asc())
+                .limit(100));
+    }
+
+    //subQueryIn 형태: 이름으로 고른 팀의 회원
+    @Benchmark
+    public List<Member> uncorrelatedIn() {
+        return run(queryFactory
+                .selectFrom(member)
+                .where(member.team.id.in(select(team.id).from(team).where(team.name.in("team1", "team2"))))
+                .limit(100));
+    }
+
+    //같은 팀에 username 이 member0 인 회원이 있는 회원 (상관 서브쿼리 -> 세미 조인)
+    @Benchmark
+    public List<Member> correlatedIn() {
+        return run(queryFactory
+                .selectFrom(member)
+                .where(member.team.id.in(select(memberSub.team.id)
+                        .from(memberSub)
+                        .where(memberSub.team.eq(member.team), memberSub.username.eq("member0"))))
+                .limit(100));
+    }
+
+    private List<Member> run(JPAQuery<Member> query) {
+        List<Member> result = (mode.equals("rewritten") ? rewriter.rewrite(query) : query).fetch();
+        em.clear();
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.Controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import study.querydsl.dto.LazyString;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberQueryRepository;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberController {
+
+    private final MemberQueryRepository memberQueryRepository;
+
+    @GetMapping("/v1/members")
+    public List<MemberDto> searchMemberV1(@RequestParam String teamName,
+                                          @RequestParam(defaultValue = "0") int ageGoe,
+                                          @RequestParam(defaultValue = "200") int ageLoe){
+        return memberQueryRepository.findDtoByTeamAndAge(teamName, ageGoe, ageLoe);
+    }
+
+    //조건 조합마다 쿼리 형태가 하나로 고정된다 (MemberSearchCompiler)
+    @GetMapping("/v2/members")
+    public List<MemberDto> searchMemberV2(MemberSearchCondition condition,
+                                          @RequestParam(defaultValue = "0") int offset,
+                                          @RequestParam(defaultValue = "20") int limit){
+        return memberQueryRepository.search(condition, offset, Math.min(limit, 100));
+    }
+
+    //문자열은 json 으로 쓸 때 만들어진다 (LazyString)
+    @GetMapping("/v1/members/labels")
+    public List<LazyString> memberLabels(@RequestParam String teamName){
+        return memberQueryRepository.findLabelsByTeam(teamName);
+    }
+
+    //한 줄에 하나씩(ndjson) 클라이언트가 받는 만큼만 db 에서 읽는다 (ReactiveQueryFactory)
+    @GetMapping(value = "/v1/members/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MemberDto> streamMembers(@RequestParam String teamName){
+        return memberQueryRepository.streamByTeam(teamName);
+    }
+}
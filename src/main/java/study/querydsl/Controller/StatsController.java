@@ -0,0 +1,18 @@
+package study.querydsl.Controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.monitoring.CacheStatistics;
+
+@RestController
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final CacheStatistics cacheStatistics;
+
+    @GetMapping("/stats/cache")
+    public CacheStatistics.Snapshot cache(){
+        return cacheStatistics.snapshot();
+    }
+}
@@ -1,8 +1,17 @@
 package study.querydsl;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.querydsl.monitoring.QueryMetrics;
+import study.querydsl.repository.support.InstrumentedJPAQueryFactory;
 
+//TeamStatsReconciler
+@EnableScheduling
 @SpringBootApplication
 public class QuerydslApplication {
 
@@ -10,4 +19,12 @@ public class QuerydslApplication {
 		SpringApplication.run(QuerydslApplication.class, args);
 	}
 
+	//EntityManager는 스프링이 트랜잭션 단위로 프록시를 바인딩해주므로 싱글톤으로 등록해도 동시성 문제 없음
+	//query-metrics.enabled=false 면 계측 없는 기본 JPAQueryFactory
+	@Bean
+	JPAQueryFactory jpaQueryFactory(EntityManager em, ObjectProvider<QueryMetrics> queryMetrics) {
+		QueryMetrics metrics = queryMetrics.getIfAvailable();
+		return metrics == null ? new JPAQueryFactory(em) : new InstrumentedJPAQueryFactory(em, metrics);
+	}
+
 }
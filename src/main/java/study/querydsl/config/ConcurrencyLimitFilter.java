@@ -0,0 +1,109 @@
+package study.querydsl.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * 동시에 처리하는 요청 수를 제한한다
+ * 가상 스레드에서는 톰캣 스레드 수가 상한이 되지 않으므로, 제한이 없으면 요청이 전부 커넥션 풀 대기로 몰린다
+ * max-concurrent 를 넘는 요청은 queue-timeout 만큼 기다리다가 503 으로 돌려보낸다
+ * (Semaphore 는 synchronized 가 아니라서 가상 스레드가 기다리는 동안 캐리어 스레드를 잡지 않는다)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "concurrency-limit.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final Duration queueTimeout;
+
+    public ConcurrencyLimitFilter(@Value("${concurrency-limit.max-concurrent}") int maxConcurrent,
+                                  @Value("${concurrency-limit.queue-timeout:1s}") Duration queueTimeout) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("max-concurrent는 1 이상이어야 합니다: " + maxConcurrent);
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.queueTimeout = queueTimeout;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.debug("concurrency limit exceeded: {}", request.getRequestURI());
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            //비동기 요청(스트리밍 등)은 첫 디스패치가 끝나도 처리 중이다. ASYNC 디스패치는 이 필터를 거치지 않으므로 끝날 때 돌려준다
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permits.release();
+            }
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    //timeout/error 뒤에도 complete 가 불리므로 한 번만 돌려준다
+    private class ReleaseOnComplete implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/*
+ * 레플리카마다 지연을 주기적으로 재서 maxLag 를 넘거나 접속이 안 되면 라우팅에서 뺀다 (다시 따라잡으면 넣는다)
+ * lagQuery 는 지연(초)을 숫자 하나로 돌려주는 쿼리 (db마다 다름). 없으면 접속 가능 여부만 본다
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final String lagQuery;
+    private final Duration maxLag;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource, String lagQuery, Duration maxLag) {
+        this.routingDataSource = routingDataSource;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.routing.probe-interval:PT1S}")
+    public void probe() {
+        routingDataSource.getReplicas().forEach((name, dataSource) -> {
+            boolean healthy = isHealthy(name, dataSource);
+            if (healthy != routingDataSource.isHealthy(name)) {
+                log.warn("replica {} {}", name, healthy ? "back in rotation" : "removed from rotation");
+            }
+            routingDataSource.setHealthy(name, healthy);
+        });
+    }
+
+    private boolean isHealthy(String name, DataSource dataSource) {
+        try {
+            Duration lag = lagOf(dataSource);
+            if (lag.compareTo(maxLag) > 0) {
+                log.debug("replica {} lag {} > {}", name, lag, maxLag);
+                return false;
+            }
+            return true;
+        } catch (SQLException e) {
+            log.debug("replica {} probe failed", name, e);
+            return false;
+        }
+    }
+
+    Duration lagOf(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (lagQuery == null) {
+                if (!connection.isValid(1)) {
+                    throw new SQLException("connection is not valid");
+                }
+                return Duration.ZERO;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                if (!rs.next()) {
+                    throw new SQLException("lag query returned no rows");
+                }
+                return Duration.ofMillis((long) (rs.getDouble(1) * 1000));
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * @Transactional(readOnly = true) 안에서는 레플리카로, 그 외에는 primary 로 커넥션을 얻는다
+ * - 레플리카는 라운드 로빈, 지연(lag)이 큰 레플리카는 ReplicaLagMonitor 가 빼둔다
+ * - 쓸 수 있는 레플리카가 없으면 primary 로 읽는다
+ * 트랜잭션 시작 시점에는 readOnly 플래그가 아직 없으므로 LazyConnectionDataSourceProxy 로 감싸서
+ * 첫 쿼리 때 커넥션을 고르게 해야 한다 (RoutingDataSourceConfig)
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaNames;
+    private final Set<String> unhealthy = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        if (replicas.containsKey(PRIMARY)) {
+            throw new IllegalArgumentException("레플리카 이름으로 " + PRIMARY + "는 쓸 수 없습니다");
+        }
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+        this.replicaNames = List.copyOf(replicas.keySet());
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return nextReplica();
+        }
+        return PRIMARY;
+    }
+
+    //라운드 로빈으로 돌면서 빠진 레플리카는 건너뛴다
+    String nextReplica() {
+        int size = replicaNames.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            String name = replicaNames.get((start + i) % size);
+            if (!unhealthy.contains(name)) {
+                return name;
+            }
+        }
+        return PRIMARY;
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public void setHealthy(String replica, boolean healthy) {
+        if (!replicas.containsKey(replica)) {
+            throw new IllegalArgumentException("없는 레플리카: " + replica);
+        }
+        if (healthy) {
+            unhealthy.remove(replica);
+        } else {
+            unhealthy.add(replica);
+        }
+    }
+
+    public boolean isHealthy(String replica) {
+        return replicas.containsKey(replica) && !unhealthy.contains(replica);
+    }
+
+    //커넥션 풀은 빈이 아니므로 여기서 닫는다
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : getResolvedDataSources().values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * datasource.routing.enabled=true 일 때만 primary/레플리카 라우팅 DataSource 로 바꾼다
+ * JPAQueryFactory 는 그대로 쓰고, readOnly 트랜잭션인지에 따라 커넥션만 다른 db 에서 얻는다
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(RoutingDataSourceProperties properties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        properties.getReplicas().forEach((name, node) -> replicas.put(name, hikari(name, node)));
+        return new ReplicaRoutingDataSource(hikari(ReplicaRoutingDataSource.PRIMARY, properties.getPrimary()), replicas);
+    }
+
+    //실제 커넥션은 첫 쿼리 때 얻어야 readOnly 여부로 라우팅할 수 있다
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource, RoutingDataSourceProperties properties) {
+        return new ReplicaLagMonitor(replicaRoutingDataSource, properties.getLagQuery(), properties.getMaxLag());
+    }
+
+    private static HikariDataSource hikari(String name, RoutingDataSourceProperties.Node node) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(node.getUrl());
+        dataSource.setUsername(node.getUsername());
+        dataSource.setPassword(node.getPassword());
+        dataSource.setMaximumPoolSize(node.getMaximumPoolSize());
+        return dataSource;
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties("datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+    private Node primary = new Node();
+    //이름 -> 접속 정보
+    private Map<String, Node> replicas = new LinkedHashMap<>();
+    //이보다 뒤처진 레플리카는 읽기에서 뺀다
+    private Duration maxLag = Duration.ofSeconds(5);
+    private String lagQuery;
+
+    @Getter @Setter
+    public static class Node {
+        private String url;
+        private String username = "sa";
+        private String password = "";
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * db 에서 가져온 값(컬럼)과 상수를 이어 붙인 문자열. 실제로 읽을 때까지 String 을 만들지 않는다 (LazyConcat)
+ * length/charAt/toString 을 처음 부르면 한 번 만들어서 캐시하고,
+ * json 으로 내려줄 때는 스레드마다 재사용하는 버퍼에 바로 써서 String 을 만들지 않는다
+ */
+@JsonSerialize(using = LazyString.Serializer.class)
+public final class LazyString implements CharSequence {
+
+    //String 또는 가공하지 않은 컬럼 값(Integer, Long ...)
+    private final Object[] parts;
+    private String value;
+
+    public LazyString(Object... parts) {
+        this.parts = parts;
+    }
+
+    public StringBuilder appendTo(StringBuilder sb) {
+        if (value != null) {
+            return sb.append(value);
+        }
+        for (Object part : parts) {
+            //Integer/Long 은 String.valueOf 를 거치지 않고 바로 쓴다
+            if (part instanceof Integer i) {
+                sb.append(i.intValue());
+            } else if (part instanceof Long l) {
+                sb.append(l.longValue());
+            } else {
+                sb.append(part);
+            }
+        }
+        return sb;
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (value == null) {
+            value = appendTo(new StringBuilder()).toString();
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof LazyString other && toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    public static class Serializer extends StdSerializer<LazyString> {
+
+        //이보다 큰 버퍼는 스레드에 붙잡아두지 않는다
+        private static final int MAX_RETAINED = 8 * 1024;
+        private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+        public Serializer() {
+            super(LazyString.class);
+        }
+
+        @Override
+        public void serialize(LazyString value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            Buffer buffer = BUFFER.get();
+            StringBuilder sb = buffer.sb;
+            sb.setLength(0);
+            value.appendTo(sb);
+            int length = sb.length();
+            if (buffer.chars.length < length) {
+                buffer.chars = new char[Math.max(length, buffer.chars.length * 2)];
+            }
+            sb.getChars(0, length, buffer.chars, 0);
+            gen.writeString(buffer.chars, 0, length);
+            if (length > MAX_RETAINED) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    private static final class Buffer {
+        private final StringBuilder sb = new StringBuilder(64);
+        private char[] chars = new char[64];
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import study.querydsl.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋 페이징에서 "마지막으로 본 행"의 정렬 키 (username, age, id)
+ * 클라이언트에는 encode()한 불투명 문자열로 내려주고 다음 요청에서 decode()로 복원한다
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberCursor {
+
+    private static final String DELIMITER = ":";
+
+    private final String username;
+    private final int age;
+    private final Long id;
+
+    public MemberCursor(String username, int age, Long id) {
+        if (username == null || id == null) {
+            throw new IllegalArgumentException("cursor 정렬 키에 null이 올 수 없습니다");
+        }
+        this.username = username;
+        this.age = age;
+        this.id = id;
+    }
+
+    public static MemberCursor of(Member member) {
+        return new MemberCursor(member.getUsername(), member.getAge(), member.getId());
+    }
+
+    //username에 구분자가 들어갈 수 있으므로 마지막 토큰으로 둔다
+    public String encode() {
+        String raw = age + DELIMITER + id + DELIMITER + username;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(DELIMITER, 3);
+            return new MemberCursor(parts[2], Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 cursor 입니다: " + token, e);
+        }
+    }
+}
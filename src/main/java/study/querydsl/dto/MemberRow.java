@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 대량 적재용 회원 한 건. 팀은 id로만 참조한다
+ */
+@Getter
+@ToString
+public class MemberRow {
+
+    private final String username;
+    private final int age;
+    private final Long teamId;
+
+    public MemberRow(String username, int age, Long teamId) {
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+//회원 검색 조건. 값이 없는(null, 빈 문자열) 조건은 쿼리에서 빠진다
+@Data
+public class MemberSearchCondition {
+
+    private String username;
+    private String teamName;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    private Sort sort = Sort.USERNAME_ASC;
+
+    public enum Sort {
+        USERNAME_ASC, USERNAME_DESC, AGE_ASC, AGE_DESC
+    }
+}
@@ -3,18 +3,38 @@ package study.querydsl.entity;
 import jakarta.persistence.*;
 import lombok.*;
 
+//자주 쓰는 조회 경로: username 검색/키셋 정렬(username, age, id), 나이 조건 + (age desc, username asc) 정렬, 팀별 회원 (ExplainPlanChecker 참고)
+//나이 구간 순위 정렬 (MemberRankingRepository 참고)
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username_age", columnList = "username, age, member_id"),
+        @Index(name = "idx_member_age_username", columnList = "age desc, username asc"),
+        @Index(name = "idx_member_team_id", columnList = "team_id"),
+        @Index(name = "idx_member_age_rank", columnList = "age_rank desc, member_id")
+})
+@NamedEntityGraph(name = Member.WITH_TEAM, attributeNodes = @NamedAttributeNode("team"))
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","username","age"})
 public class Member {
 
-    @Id @GeneratedValue
+    //FetchPlans 에서 이름으로 쓰는 엔티티 그래프
+    public static final String WITH_TEAM = "member-with-team";
+
+    //pooled-lo 옵티마이저: 시퀀스 한 번 호출로 id 100개를 메모리에서 할당 (application.yml 참고)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 100)
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    //rankOf(age) 를 저장해둔 값. 정렬할 때 case 식 대신 인덱스를 쓴다
+    @Setter(AccessLevel.NONE)
+    @Column(name = "age_rank")
+    private int ageRank;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -38,4 +58,22 @@ public class Member {
         this.team = team;
         team.getMembers().add(this);
     }
+
+    //0~20살 2, 21~30살 1, 나머지 3 (AgeRanks.caseOf 와 같은 규칙)
+    public static int rankOf(int age) {
+        if (age >= 0 && age <= 20) {
+            return 2;
+        }
+        if (age >= 21 && age <= 30) {
+            return 1;
+        }
+        return 3;
+    }
+
+    //벌크 update 는 콜백을 거치지 않으므로 BulkMutationService 에서 같이 바꾼다
+    @PrePersist
+    @PreUpdate
+    void computeAgeRank() {
+        this.ageRank = rankOf(age);
+    }
 }
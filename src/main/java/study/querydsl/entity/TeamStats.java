@@ -0,0 +1,35 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/*
+ * 팀별 회원 나이 집계 (count/sum/avg/min/max) 를 미리 계산해둔 읽기 모델
+ * 회원이 추가/삭제되거나 팀, 나이가 바뀔 때 TeamStatsMaintainer 가 커밋 직전에 증분으로 갱신한다
+ * 팀 삭제 시 막히지 않도록 Team 과 연관관계(FK)는 두지 않고 id만 같이 쓴다
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = {"teamId","teamName","memberCount","ageSum","ageMin","ageMax"})
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    //회원이 없으면 null
+    private Integer ageMin;
+    private Integer ageMax;
+
+    public TeamStats(Long teamId, String teamName) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+    }
+
+    public Double getAgeAvg() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+}
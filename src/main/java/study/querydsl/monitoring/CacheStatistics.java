@@ -0,0 +1,72 @@
+package study.querydsl.monitoring;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Team;
+
+/**
+ * 2차 캐시/쿼리 캐시 적중 현황 (hibernate.generate_statistics 필요)
+ */
+@Component
+public class CacheStatistics {
+
+    private final Statistics statistics;
+
+    public CacheStatistics(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public Snapshot snapshot() {
+        EntityStatistics teamStatistics = statistics.getEntityStatistics(Team.class.getName());
+        return new Snapshot(
+                new Counts(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                        statistics.getSecondLevelCachePutCount()),
+                new Counts(teamStatistics.getCacheHitCount(), teamStatistics.getCacheMissCount(),
+                        teamStatistics.getCachePutCount()),
+                new Counts(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(),
+                        statistics.getQueryCachePutCount()),
+                statistics.getPrepareStatementCount());
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    @Getter
+    public static class Snapshot {
+        private final Counts secondLevel;
+        private final Counts team;
+        private final Counts query;
+        //db로 실제 나간 문장 수. 캐시가 잘 동작하면 이 값의 증가 속도가 줄어든다
+        private final long preparedStatements;
+
+        Snapshot(Counts secondLevel, Counts team, Counts query, long preparedStatements) {
+            this.secondLevel = secondLevel;
+            this.team = team;
+            this.query = query;
+            this.preparedStatements = preparedStatements;
+        }
+    }
+
+    @Getter
+    public static class Counts {
+        private final long hit;
+        private final long miss;
+        private final long put;
+
+        Counts(long hit, long miss, long put) {
+            this.hit = hit;
+            this.miss = miss;
+            this.put = put;
+        }
+
+        public double getHitRatio() {
+            long total = hit + miss;
+            return total == 0 ? 0 : (double) hit / total;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package study.querydsl.monitoring;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * 시작할 때 자주 쓰는 쿼리들을 한 번씩 실행해서 (p6spy로) 실제 sql 을 얻고, EXPLAIN 결과에 전체 스캔이 있으면 경고한다
+ * 인덱스를 빼먹거나 조건 형태가 바뀌어서 인덱스를 못 타게 된 걸 배포 직후에 알아채기 위한 용도
+ * 전체 스캔 표시: h2 "tableScan", postgresql "Seq Scan", mysql "type: ALL"
+ * mysql 은 type 컬럼 값만 본다 (다른 db 의 계획 텍스트에 나오는 UNION ALL 등과 헷갈리지 않게)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "explain-check.enabled", havingValue = "true")
+public class ExplainPlanChecker {
+
+    static final Pattern FULL_SCAN = Pattern.compile("tableScan|Seq Scan|\\btype: ALL\\b");
+
+    public record Finding(String query, String sql, String plan) {
+    }
+
+    private final JPAQueryFactory queryFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate tx;
+    private final List<HotQuery> hotQueries = new ArrayList<>(defaults());
+
+    public ExplainPlanChecker(JPAQueryFactory queryFactory, DataSource dataSource,
+                              PlatformTransactionManager transactionManager, ObjectProvider<HotQuery> registered) {
+        this.queryFactory = queryFactory;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        registered.orderedStream().forEach(hotQueries::add);
+    }
+
+    //QuerydslBasicTest, 리포지토리에서 쓰는 조회 경로
+    static List<HotQuery> defaults() {
+        return List.of(
+                new HotQuery("member by username", qf -> qf
+                        .selectFrom(member)
+                        .where(member.username.eq("member1"))),
+                new HotQuery("member by age sorted", qf -> qf
+                        .selectFrom(member)
+                        .where(member.age.eq(100))
+                        .orderBy(member.age.desc(), member.username.asc().nullsLast())),
+                new HotQuery("member by age range", qf -> qf
+                        .selectFrom(member)
+                        .where(member.age.between(10, 20))),
+                new HotQuery("members of team", qf -> qf
+                        .selectFrom(member)
+                        .where(member.team.id.eq(1L))),
+                new HotQuery("member join team by name", qf -> qf
+                        .select(member)
+                        .from(member)
+                        .join(member.team, team)
+                        .where(team.name.eq("teamA"))),
+                new HotQuery("team by name", qf -> qf
+                        .selectFrom(team)
+                        .where(team.name.eq("teamA"))));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void onReady() {
+        check(hotQueries);
+    }
+
+    //전체 스캔이 있는 쿼리만 돌려준다
+    public List<Finding> check(List<HotQuery> queries) {
+        List<Finding> fullScans = new ArrayList<>();
+        for (HotQuery hotQuery : queries) {
+            List<String> sqls = SqlCapture.capture(() -> tx.executeWithoutResult(status ->
+                    hotQuery.query().apply(queryFactory).limit(1).fetch()));
+            if (sqls.isEmpty()) {
+                log.info("explain check skipped, sql not captured (p6spy disabled?): {}", hotQuery.name());
+                continue;
+            }
+            for (String sql : sqls) {
+                String plan = explain(sql);
+                if (FULL_SCAN.matcher(plan).find()) {
+                    log.warn("full scan in hot query [{}]: {}", hotQuery.name(), plan);
+                    fullScans.add(new Finding(hotQuery.name(), sql, plan));
+                }
+            }
+        }
+        return fullScans;
+    }
+
+    private String explain(String sql) {
+        List<String> rows = jdbcTemplate.query("explain " + sql, (rs, rowNum) -> {
+            StringBuilder row = new StringBuilder();
+            int columns = rs.getMetaData().getColumnCount();
+            for (int i = 1; i <= columns; i++) {
+                if ("type".equalsIgnoreCase(rs.getMetaData().getColumnLabel(i))) {
+                    row.append("type: ");
+                }
+                row.append(rs.getString(i)).append(' ');
+            }
+            return row.toString().trim();
+        });
+        return String.join("\n", rows);
+    }
+}
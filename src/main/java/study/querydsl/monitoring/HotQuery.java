@@ -0,0 +1,13 @@
+package study.querydsl.monitoring;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.function.Function;
+
+/**
+ * 실행 계획을 확인할 자주 쓰는 쿼리. 값은 대표값 아무거나 넣으면 된다
+ * 빈으로 등록하면 ExplainPlanChecker 가 기본 목록과 함께 확인한다
+ */
+public record HotQuery(String name, Function<JPAQueryFactory, JPAQuery<?>> query) {
+}
@@ -0,0 +1,34 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+
+/**
+ * 같은 형태로 반복된 조회 한 건
+ * table/column은 "어느 테이블을 어떤 키로" 반복 조회했는지, 즉 원인이 된 연관관계를 가리킨다
+ * (team by id -> Member.team 프록시, member by team_id -> Team.members 컬렉션)
+ */
+@Getter
+public class NPlusOneSuspect {
+
+    private final String table;
+    private final String column;
+    private final int count;
+    private final boolean lazyLoading;
+    private final String callSite;
+    private final String sql;
+
+    public NPlusOneSuspect(String table, String column, int count, boolean lazyLoading, String callSite, String sql) {
+        this.table = table;
+        this.column = column;
+        this.count = count;
+        this.lazyLoading = lazyLoading;
+        this.callSite = callSite;
+        this.sql = sql;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("N+1 의심: %s.%s 조회 %d회%s at %s%n    %s",
+                table, column, count, lazyLoading ? " (지연 로딩)" : "", callSite, sql);
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+public class QueryBudgetExceededException extends RuntimeException {
+
+    private final List<NPlusOneSuspect> suspects;
+
+    public QueryBudgetExceededException(int budget, int actual, List<NPlusOneSuspect> suspects) {
+        super("쿼리 " + budget + "개를 예상했지만 " + actual + "개 실행됨" + describe(suspects));
+        this.suspects = suspects;
+    }
+
+    public QueryBudgetExceededException(List<NPlusOneSuspect> suspects) {
+        super("반복 조회 감지" + describe(suspects));
+        this.suspects = suspects;
+    }
+
+    private static String describe(List<NPlusOneSuspect> suspects) {
+        return suspects.stream()
+                .map(NPlusOneSuspect::toString)
+                .collect(Collectors.joining("\n", "\n", ""));
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.monitoring;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.List;
+
+/**
+ * 요청 단위로 쿼리 수를 세고, 반복 조회나 예산 초과가 있으면 경고 로그를 남긴다
+ *
+ * 비동기 요청(Flux, Callable 등)은 첫 디스패치가 끝날 때 afterCompletion 대신 afterConcurrentHandlingStarted 가 불린다
+ * 그때 스코프를 스레드에서 떼고, 결과를 내보내는 ASYNC 디스패치에서는 새로 시작하지 않고 마지막에 한 번 보고한다
+ * (작업 스레드에서 실행된 쿼리는 세지 않는다)
+ */
+@Slf4j
+@Component
+public class QueryCountInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE = QueryCountInterceptor.class.getName() + ".SCOPE";
+
+    private final int nPlusOneThreshold;
+    private final int budget;
+
+    public QueryCountInterceptor(@Value("${query-count.n-plus-one-threshold:3}") int nPlusOneThreshold,
+                                 @Value("${query-count.budget:20}") int budget) {
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.budget = budget;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.ASYNC || request.getAttribute(SCOPE) == null) {
+            request.setAttribute(SCOPE, QueryCounter.start());
+        }
+        return true;
+    }
+
+    //요청 스레드가 풀로 돌아가므로 스코프를 떼어낸다. 떼지 않으면 이 스레드의 다음 요청들이 계속 여기에 기록된다
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(SCOPE) instanceof QueryCounter.Scope scope) {
+            scope.close();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(SCOPE) instanceof QueryCounter.Scope scope)) {
+            return;
+        }
+        scope.close();
+
+        List<NPlusOneSuspect> suspects = scope.suspects(nPlusOneThreshold);
+        for (NPlusOneSuspect suspect : suspects) {
+            log.warn("[{} {}] {}", request.getMethod(), request.getRequestURI(), suspect);
+        }
+        if (scope.count() > budget) {
+            log.warn("[{} {}] 쿼리 {}개 실행 (예산 {}개)", request.getMethod(), request.getRequestURI(), scope.count(), budget);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy-spring-boot-starter는 JdbcEventListener 빈을 자동으로 등록한다
+ * batch 실행도 한 번의 왕복이므로 한 문장으로 센다
+ */
+@Component
+public class QueryCountListener extends JdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryCounter.record(statementInformation.getSql());
+        if (SqlCapture.isCapturing()) {
+            SqlCapture.record(statementInformation.getSqlWithValues());
+        }
+    }
+}
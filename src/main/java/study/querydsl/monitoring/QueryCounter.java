@@ -0,0 +1,174 @@
+package study.querydsl.monitoring;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 스레드 단위로 실행된 sql 문장 수를 센다 (p6spy {@link QueryCountListener}가 기록)
+ *
+ * <pre>
+ * try (QueryCounter.Scope scope = QueryCounter.start()) {
+ *     ...
+ *     scope.assertAtMost(2);
+ * }
+ * </pre>
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'|\\b\\d+\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern SELECT_TABLE = Pattern.compile("^select .+? from (\\w+)(?: \\w+)? where (?:\\w+\\.)?(\\w+)\\s*(?:=\\s*\\?|=\\s*any\\s*\\(|in\\s*\\()",
+            Pattern.CASE_INSENSITIVE);
+
+    private QueryCounter() {
+    }
+
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    static void record(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope == null || sql == null || sql.isBlank()) {
+            return;
+        }
+        String shape = shapeOf(sql);
+        for (Scope s = scope; s != null; s = s.parent) {
+            s.record(shape);
+        }
+    }
+
+    //리터럴과 공백 차이는 같은 형태로 본다
+    static String shapeOf(String sql) {
+        String normalized = LITERAL.matcher(sql).replaceAll("?");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final Map<String, ShapeCount> shapes = new LinkedHashMap<>();
+        private int count;
+        private boolean closed;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        private void record(String shape) {
+            count++;
+            ShapeCount shapeCount = shapes.computeIfAbsent(shape, ShapeCount::new);
+            shapeCount.count++;
+            //스택을 뜨는 비용이 있으므로 같은 형태가 처음 반복될 때만 호출 위치를 기록한다
+            if (shapeCount.count == 2) {
+                shapeCount.captureCallSite();
+            }
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public int count(String shape) {
+            ShapeCount shapeCount = shapes.get(shape);
+            return shapeCount == null ? 0 : shapeCount.count;
+        }
+
+        public Map<String, Integer> countsByShape() {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            shapes.forEach((shape, shapeCount) -> result.put(shape, shapeCount.count));
+            return result;
+        }
+
+        //같은 형태의 단건/in 조회가 threshold 번 이상 반복되면 N+1 의심
+        public List<NPlusOneSuspect> suspects(int threshold) {
+            List<NPlusOneSuspect> suspects = new ArrayList<>();
+            for (ShapeCount shapeCount : shapes.values()) {
+                if (shapeCount.count < threshold) {
+                    continue;
+                }
+                Matcher matcher = SELECT_TABLE.matcher(shapeCount.shape);
+                if (matcher.find()) {
+                    suspects.add(new NPlusOneSuspect(matcher.group(1), matcher.group(2), shapeCount.count,
+                            shapeCount.lazyLoading, shapeCount.callSite, shapeCount.shape));
+                }
+            }
+            return suspects;
+        }
+
+        public void assertAtMost(int budget) {
+            if (count > budget) {
+                throw new QueryBudgetExceededException(budget, count, suspects(2));
+            }
+        }
+
+        public void assertNoNPlusOne(int threshold) {
+            List<NPlusOneSuspect> suspects = suspects(threshold);
+            if (!suspects.isEmpty()) {
+                throw new QueryBudgetExceededException(suspects);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (CURRENT.get() == this) {
+                if (parent == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(parent);
+                }
+            }
+        }
+    }
+
+    private static class ShapeCount {
+
+        private final String shape;
+        private int count;
+        private boolean lazyLoading;
+        private String callSite = "unknown";
+
+        ShapeCount(String shape) {
+            this.shape = shape;
+        }
+
+        /*
+         * 스택 위에서부터 처음 만나는 애플리케이션 코드가 호출 위치
+         * 하이버네이트 프록시/지연 컬렉션 초기화 코드를 지나왔다면 지연 로딩으로 인한 조회
+         */
+        void captureCallSite() {
+            StackWalker.getInstance().walk(frames -> {
+                Iterator<StackWalker.StackFrame> iterator = frames.iterator();
+                while (iterator.hasNext()) {
+                    StackWalker.StackFrame frame = iterator.next();
+                    String className = frame.getClassName();
+                    if (className.startsWith("org.hibernate.proxy.") || className.startsWith("org.hibernate.collection.")
+                            || className.contains("$HibernateProxy$")) {
+                        lazyLoading = true;
+                    } else if (className.startsWith("study.querydsl.") && !className.startsWith("study.querydsl.monitoring.")) {
+                        callSite = frame.toStackTraceElement().toString();
+                        break;
+                    }
+                }
+                return null;
+            });
+        }
+    }
+}
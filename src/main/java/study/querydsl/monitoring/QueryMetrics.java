@@ -0,0 +1,158 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * querydsl 쿼리 형태(shape)별 실행 시간/결과 행 수/처리량을 micrometer 로 기록한다
+ * querydsl 은 상수를 전부 파라미터(?1, ?2)로 바인딩하므로 jpql 문자열 자체가 값이 빠진 쿼리 형태다
+ * 형태마다 미터를 한 번만 만들어두고 실행할 때는 찾아서 기록만 한다 (태그/미터 생성 없음)
+ *
+ * - querydsl.query            타이머 (히스토그램)
+ * - querydsl.query.rows       결과 행 수
+ * - querydsl.query.throughput 행/ms
+ * - querydsl.query.errors     실패 횟수
+ * - querydsl.query.plan       애플리케이션이 고른 실행 방식 (decision, plan 태그. MemberRankingRepository)
+ * 태그 shape 는 jpql 의 sha-1 앞 16자리 (String.hashCode 처럼 32비트면 다른 형태끼리 겹쳐 미터를 나눠 쓸 수 있다)
+ * jpql 원문은 /actuator/queryshapes 에서 본다
+ */
+@Component
+@ConditionalOnProperty(name = "query-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryMetrics {
+
+    static final String OTHER = "other";
+
+    private final MeterRegistry registry;
+    private final int maxShapes;
+    private final Map<String, Shape> shapes = new ConcurrentHashMap<>();
+    private final Shape other;
+
+    public QueryMetrics(MeterRegistry registry, @Value("${query-metrics.max-shapes:500}") int maxShapes) {
+        this.registry = registry;
+        this.maxShapes = maxShapes;
+        this.other = new Shape(OTHER, null, registry);
+    }
+
+    //태그 수가 끝없이 늘지 않도록 maxShapes 를 넘으면 other 로 모은다
+    public Shape shape(String jpql) {
+        Shape shape = shapes.get(jpql);
+        if (shape != null) {
+            return shape;
+        }
+        if (shapes.size() >= maxShapes) {
+            return other;
+        }
+        return shapes.computeIfAbsent(jpql, q -> new Shape(fingerprint(q), q, registry));
+    }
+
+    //미터를 만들지 않고 찾기만 한다. 실행된 적이 없으면 (또는 other 로 모였으면) null
+    public Shape find(String jpql) {
+        return shapes.get(jpql);
+    }
+
+    public void record(String jpql, long nanos, int rows) {
+        shape(jpql).record(nanos, rows);
+    }
+
+    public void recordError(String jpql) {
+        shape(jpql).errors.increment();
+    }
+
+    //정렬/집계를 db 와 메모리 중 어디서 할지 같은 선택. 태그 값은 호출하는 쪽의 고정된 이름만 쓴다
+    public void recordPlan(String decision, String plan) {
+        registry.counter("querydsl.query.plan", "decision", decision, "plan", plan).increment();
+    }
+
+    //전체 소요 시간이 큰 순서
+    public List<Shape> top(int limit) {
+        return shapes.values().stream()
+                .sorted(Comparator.comparingDouble((Shape s) -> s.timer.totalTime(TimeUnit.NANOSECONDS)).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    static String fingerprint(String jpql) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(jpql.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            //모든 jdk 에 있는 알고리즘
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static final class Shape {
+
+        private final String fingerprint;
+        private final String jpql;
+        private final Timer timer;
+        private final DistributionSummary rows;
+        private final DistributionSummary throughput;
+        private final Counter errors;
+
+        private Shape(String fingerprint, String jpql, MeterRegistry registry) {
+            this.fingerprint = fingerprint;
+            this.jpql = jpql;
+            this.timer = Timer.builder("querydsl.query")
+                    .tag("shape", fingerprint)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.rows = DistributionSummary.builder("querydsl.query.rows")
+                    .tag("shape", fingerprint)
+                    .register(registry);
+            this.throughput = DistributionSummary.builder("querydsl.query.throughput")
+                    .baseUnit("rows/ms")
+                    .tag("shape", fingerprint)
+                    .register(registry);
+            this.errors = Counter.builder("querydsl.query.errors")
+                    .tag("shape", fingerprint)
+                    .register(registry);
+        }
+
+        public void record(long nanos, int rowCount) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+            rows.record(rowCount);
+            throughput.record(rowCount / Math.max(nanos / 1_000_000.0, 0.001));
+        }
+
+        //같은 결과를 다른 쿼리로 읽었을 때 행 수만 더한다 (시간은 그 쿼리의 형태에 기록된다)
+        public void recordRows(int rowCount) {
+            rows.record(rowCount);
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getJpql() {
+            return jpql;
+        }
+
+        public Timer getTimer() {
+            return timer;
+        }
+
+        public DistributionSummary getRows() {
+            return rows;
+        }
+
+        public double errorCount() {
+            return errors.count();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/queryshapes?limit=10 : 전체 소요 시간이 큰 쿼리 형태 상위 N개
+ */
+@Component
+//QueryMetrics 와 같은 조건 (컴포넌트 스캔 대상에서 @ConditionalOnBean 은 스캔 순서에 따라 결과가 달라진다)
+@ConditionalOnProperty(name = "query-metrics.enabled", havingValue = "true", matchIfMissing = true)
+@Endpoint(id = "queryshapes")
+@RequiredArgsConstructor
+public class QueryShapesEndpoint {
+
+    private final QueryMetrics queryMetrics;
+
+    public record ShapeSummary(String shape, String jpql, long count, double totalMs, double meanMs, double maxMs,
+                               double meanRows, double errors) {
+    }
+
+    @ReadOperation
+    public List<ShapeSummary> shapes(@Nullable Integer limit) {
+        return queryMetrics.top(limit == null ? 10 : limit).stream()
+                .map(s -> new ShapeSummary(
+                        s.getFingerprint(),
+                        s.getJpql(),
+                        s.getTimer().count(),
+                        s.getTimer().totalTime(TimeUnit.MILLISECONDS),
+                        s.getTimer().mean(TimeUnit.MILLISECONDS),
+                        s.getTimer().max(TimeUnit.MILLISECONDS),
+                        s.getRows().mean(),
+                        s.errorCount()))
+                .toList();
+    }
+}
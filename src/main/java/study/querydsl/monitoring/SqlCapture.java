@@ -0,0 +1,43 @@
+package study.querydsl.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 현재 스레드에서 실행되는 sql 을 파라미터 값이 들어간 형태로 모은다 (p6spy, QueryCountListener)
+ * 모으는 중이 아닐 때는 값을 채운 sql 을 만들지 않는다
+ */
+public final class SqlCapture {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    private SqlCapture() {
+    }
+
+    public static List<String> capture(Runnable action) {
+        List<String> previous = CAPTURED.get();
+        List<String> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                CAPTURED.remove();
+            } else {
+                CAPTURED.set(previous);
+            }
+        }
+        return captured;
+    }
+
+    static boolean isCapturing() {
+        return CAPTURED.get() != null;
+    }
+
+    static void record(String sqlWithValues) {
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(sqlWithValues);
+        }
+    }
+}
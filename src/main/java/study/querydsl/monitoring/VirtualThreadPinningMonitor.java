@@ -0,0 +1,82 @@
+package study.querydsl.monitoring;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * 가상 스레드가 synchronized 블록 안에서 블로킹되면 캐리어 스레드를 붙잡는다(pinning)
+ * jdbc 드라이버(h2 JdbcConnection 등)는 synchronized 로 된 곳이 많아서, JFR jdk.VirtualThreadPinned 이벤트를 받아
+ * 고정된 위치(드라이버/애플리케이션 첫 프레임)별로 횟수를 세고 경고 로그를 남긴다
+ */
+@Slf4j
+@Component
+//spring.threads.virtual.enabled 이고 java 21 이상일 때만 (그 밖에는 가상 스레드를 쓰지 않으므로 JFR 스트림을 열지 않는다)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+
+    static final String EVENT = "jdk.VirtualThreadPinned";
+
+    private final Duration threshold;
+    private final Map<String, LongAdder> pinnedAt = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(@Value("${virtual-threads.pinning-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    void stop() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = siteOf(event.getStackTrace());
+        pinnedAt.computeIfAbsent(site, s -> new LongAdder()).increment();
+        log.warn("virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+    }
+
+    //jdk 내부 프레임은 건너뛰고 처음 나오는 드라이버/애플리케이션 프레임
+    static String siteOf(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0).getMethod().getType().getName();
+    }
+
+    public Map<String, Long> pinnedCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        pinnedAt.forEach((site, count) -> result.put(site, count.sum()));
+        return result;
+    }
+}
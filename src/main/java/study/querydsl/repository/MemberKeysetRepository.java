@@ -0,0 +1,83 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.KeysetPage;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/*
+ * offset 페이징은 건너뛸 행을 전부 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다
+ * 키셋(seek) 페이징은 직전 페이지의 마지막 정렬 키보다 "뒤"에 있는 행만 조건으로 찾기 때문에
+ * (username, age, member_id) 인덱스(idx_member_username_age)를 타므로 몇 번째 페이지든 첫 페이지와 비용이 같다
+ *
+ * 정렬 키는 유일해야 하므로 id를 마지막 tie-breaker로 둔다
+ * username이 null인 회원은 비교 연산으로 위치를 정할 수 없어 키셋 페이징 대상에서 제외된다
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberKeysetRepository {
+
+    private final JPAQueryFactory queryFactory;
+
+    public KeysetPage<Member, MemberCursor> findPage(MemberCursor after, int size, Order order) {
+        return findPage(null, after, size, order);
+    }
+
+    public KeysetPage<Member, MemberCursor> findPage(Predicate condition, MemberCursor after, int size, Order order) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size는 1 이상이어야 합니다: " + size);
+        }
+
+        //다음 페이지 존재 여부를 count 없이 알기 위해 한 건 더 가져온다
+        List<Member> rows = queryFactory
+                .selectFrom(member)
+                .where(condition,
+                        member.username.isNotNull(),
+                        seek(after, order))
+                .orderBy(new OrderSpecifier<>(order, member.username),
+                        new OrderSpecifier<>(order, member.age),
+                        new OrderSpecifier<>(order, member.id))
+                .limit(size + 1)
+                .fetch();
+
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<Member> content = rows.subList(0, size);
+        return new KeysetPage<>(content, MemberCursor.of(content.get(size - 1)));
+    }
+
+    //(username, age, id) > (:username, :age, :id) 를 jpql로 풀어쓴 조건
+    private BooleanExpression seek(MemberCursor after, Order order) {
+        if (after == null) {
+            return null;
+        }
+        return order == Order.ASC ? after(after) : before(after);
+    }
+
+    private BooleanExpression after(MemberCursor c) {
+        return member.username.gt(c.getUsername())
+                .or(member.username.eq(c.getUsername())
+                        .and(member.age.gt(c.getAge())
+                                .or(member.age.eq(c.getAge())
+                                        .and(member.id.gt(c.getId())))));
+    }
+
+    private BooleanExpression before(MemberCursor c) {
+        return member.username.lt(c.getUsername())
+                .or(member.username.eq(c.getUsername())
+                        .and(member.age.lt(c.getAge())
+                                .or(member.age.eq(c.getAge())
+                                        .and(member.id.lt(c.getId())))));
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.FetchPlans;
+import study.querydsl.repository.support.LazyTotalPage;
+import study.querydsl.repository.support.QuerydslPagingSupport;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@Repository
+@RequiredArgsConstructor
+public class MemberPagingRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final QuerydslPagingSupport pagingSupport;
+    private final FetchPlans fetchPlans;
+
+    //팀 이름 조건이 없으면 팀이 없는 회원도 나와야 하므로 left join
+    public Page<Member> searchMembers(String teamName, Pageable pageable) {
+        return pagingSupport.page(memberContent(teamName), pageable);
+    }
+
+    public LazyTotalPage<Member> searchMembersLazyTotal(String teamName, Pageable pageable) {
+        return pagingSupport.lazyPage(memberContent(teamName), pageable);
+    }
+
+    public Page<Team> searchTeams(String namePrefix, Pageable pageable) {
+        JPAQuery<Team> content = queryFactory
+                .selectFrom(team)
+                .where(teamNameStartsWith(namePrefix))
+                .orderBy(team.name.asc(), team.id.asc());
+        return pagingSupport.page(content, pageable);
+    }
+
+    //members 까지 필요한 화면. 컬렉션 fetch join 으로 페이징하지 않고 팀 id 페이지를 먼저 구한다 (FetchPlans 참고)
+    public Page<Team> searchTeamsWithMembers(String namePrefix, Pageable pageable) {
+        JPAQuery<Team> content = queryFactory
+                .selectFrom(team)
+                .where(teamNameStartsWith(namePrefix))
+                .orderBy(team.name.asc(), team.id.asc());
+        JPAQuery<Long> count = pagingSupport.countQuery(content);
+        List<Team> teams = fetchPlans.fetch(content
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize()), Team.WITH_MEMBERS);
+        return PageableExecutionUtils.getPage(teams, pageable, count::fetchOne);
+    }
+
+    private JPAQuery<Member> memberContent(String teamName) {
+        return queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(teamNameEq(teamName))
+                .orderBy(member.username.desc(), member.id.desc());
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression teamNameStartsWith(String namePrefix) {
+        return StringUtils.hasText(namePrefix) ? team.name.startsWith(namePrefix) : null;
+    }
+}
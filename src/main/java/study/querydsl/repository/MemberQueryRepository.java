@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import study.querydsl.dto.LazyString;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.support.LazyConcat;
+import study.querydsl.repository.support.PreparedQuery;
+import study.querydsl.repository.support.PreparedQueryFactory;
+import study.querydsl.repository.support.ReactiveQueryFactory;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * 호출이 잦은 조회들은 PreparedQuery로 한 번만 만들어두고 파라미터만 바꿔서 실행한다
+ */
+@Repository
+public class MemberQueryRepository {
+
+    private static final Param<String> USERNAME = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    private final PreparedQuery<Member> findByUsername;
+    private final PreparedQuery<MemberDto> findDtoByTeamAndAge;
+    private final PreparedQuery<LazyString> findLabelsByTeam;
+    private final MemberSearchCompiler searchCompiler;
+    private final JPAQueryFactory queryFactory;
+    private final ReactiveQueryFactory reactiveQueryFactory;
+
+    public MemberQueryRepository(JPAQueryFactory queryFactory, PreparedQueryFactory preparedQueryFactory,
+                                 MemberSearchCompiler searchCompiler, ReactiveQueryFactory reactiveQueryFactory) {
+        this.searchCompiler = searchCompiler;
+        this.queryFactory = queryFactory;
+        this.reactiveQueryFactory = reactiveQueryFactory;
+        this.findByUsername = preparedQueryFactory.prepare(queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(USERNAME)));
+        this.findDtoByTeamAndAge = preparedQueryFactory.prepare(queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq(TEAM_NAME),
+                        member.age.between(AGE_GOE, AGE_LOE))
+                .orderBy(member.age.asc(), member.id.asc()));
+        //"member1_10" 형태. db 에서는 username, age 만 가져오고 이어 붙이기는 LazyConcat 이 한다
+        this.findLabelsByTeam = preparedQueryFactory.prepare(queryFactory
+                .select(LazyConcat.of(member.username.concat("_").concat(member.age.stringValue())))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq(TEAM_NAME))
+                .orderBy(member.username.asc(), member.id.asc()));
+    }
+
+    public Member findByUsername(String username) {
+        return findByUsername.with(USERNAME, username).fetchOne();
+    }
+
+    public List<MemberDto> findDtoByTeamAndAge(String teamName, int ageGoe, int ageLoe) {
+        return findDtoByTeamAndAge
+                .with(TEAM_NAME, teamName)
+                .with(AGE_GOE, ageGoe)
+                .with(AGE_LOE, ageLoe)
+                .fetch();
+    }
+
+    public List<LazyString> findLabelsByTeam(String teamName) {
+        return findLabelsByTeam.with(TEAM_NAME, teamName).fetch();
+    }
+
+    public List<MemberDto> search(MemberSearchCondition condition, long offset, long limit) {
+        return searchCompiler.compile(condition)
+                .offset(offset)
+                .limit(limit)
+                .fetch();
+    }
+
+    //팀 회원 전체를 구독자가 읽는 속도에 맞춰 내보낸다
+    public Flux<MemberDto> streamByTeam(String teamName) {
+        return reactiveQueryFactory.flux(queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.eq(teamName))
+                .orderBy(member.id.asc()));
+    }
+}
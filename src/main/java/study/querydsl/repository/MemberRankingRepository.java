@@ -0,0 +1,124 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import study.querydsl.entity.Member;
+import study.querydsl.monitoring.QueryMetrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+/*
+ * complexCase2 처럼 case 식(나이 구간 순위)으로 정렬하면 인덱스를 못 쓰고 매번 전체를 정렬한다
+ * 순위는 Member.ageRank 로 저장해두고, 결과 행 수에 따라 둘 중 하나로 정렬한다
+ *
+ * - stored: order by ageRank desc, id (idx_member_age_rank)
+ * - in-memory: 정렬 없이 가져와서 메모리에서 정렬. 조건에 걸리는 행이 적으면 db 정렬/인덱스 탐색보다 싸다
+ *
+ * 행 수 추정은 QueryMetrics 에 쌓인 같은 형태(조건) 쿼리의 평균 행 수를 쓴다
+ * 기록이 없거나 추정이 작으면 in-memory 로 threshold + 1 건까지만 읽어보고, 넘치면 stored 로 다시 조회한다
+ * 넘쳤을 때는 count 로 실제 행 수를 구해 정렬 없는 형태에 더한다 (threshold + 1 로 잘린 행 수만으로는 추정이 threshold 근처에 머문다)
+ * stored 결과가 limit 보다 적으면 그게 실제 행 수이므로 더한다. 결과가 줄어들면 추정이 따라 내려가 in-memory 로 돌아온다
+ * 고른 방식은 querydsl.query.plan{decision=member.age-rank} 로 남는다
+ */
+@Repository
+public class MemberRankingRepository {
+
+    static final String DECISION = "member.age-rank";
+
+    public enum Plan {
+        STORED("stored"), IN_MEMORY("in-memory"), IN_MEMORY_OVERFLOW("in-memory-overflow");
+
+        private final String tag;
+
+        Plan(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    //db 정렬과 같은 순서: 순위 내림차순, 같으면 id
+    private static final Comparator<Member> BY_AGE_RANK = Comparator
+            .comparingInt(Member::getAgeRank).reversed()
+            .thenComparing(Member::getId);
+
+    private final JPAQueryFactory queryFactory;
+    private final ObjectProvider<QueryMetrics> metrics;
+    private final int inMemoryThreshold;
+
+    public MemberRankingRepository(JPAQueryFactory queryFactory, ObjectProvider<QueryMetrics> metrics,
+                                   @Value("${age-rank.in-memory-threshold:500}") int inMemoryThreshold) {
+        this.queryFactory = queryFactory;
+        this.metrics = metrics;
+        this.inMemoryThreshold = inMemoryThreshold;
+    }
+
+    public List<Member> findOrderByAgeRank(Predicate condition, int limit) {
+        QueryMetrics queryMetrics = metrics.getIfAvailable();
+        String unordered = select(condition).toString();
+        if (choose(unordered, queryMetrics) == Plan.IN_MEMORY) {
+            List<Member> rows = select(condition)
+                    .limit(inMemoryThreshold + 1L)
+                    .fetch();
+            if (rows.size() <= inMemoryThreshold) {
+                record(queryMetrics, Plan.IN_MEMORY);
+                List<Member> sorted = new ArrayList<>(rows);
+                sorted.sort(BY_AGE_RANK);
+                return sorted.size() > limit ? new ArrayList<>(sorted.subList(0, limit)) : sorted;
+            }
+            record(queryMetrics, Plan.IN_MEMORY_OVERFLOW);
+            if (queryMetrics != null) {
+                Long matched = queryFactory
+                        .select(member.count())
+                        .from(member)
+                        .where(condition)
+                        .fetchOne();
+                queryMetrics.shape(unordered).recordRows(matched.intValue());
+            }
+        } else {
+            record(queryMetrics, Plan.STORED);
+        }
+        List<Member> rows = select(condition)
+                .orderBy(member.ageRank.desc(), member.id.asc())
+                .limit(limit)
+                .fetch();
+        //limit 으로 잘린 행 수는 실제 행 수가 아니므로 더하지 않는다
+        if (queryMetrics != null && rows.size() < limit) {
+            queryMetrics.shape(unordered).recordRows(rows.size());
+        }
+        return rows;
+    }
+
+    //추정만 보고 미터는 만들지 않는다 (정렬 없는 형태는 in-memory 로 실행될 때 생긴다)
+    Plan choose(String unordered, QueryMetrics queryMetrics) {
+        QueryMetrics.Shape shape = queryMetrics == null ? null : queryMetrics.find(unordered);
+        if (shape == null) {
+            return Plan.IN_MEMORY;
+        }
+        DistributionSummary rows = shape.getRows();
+        return rows.count() == 0 || rows.mean() <= inMemoryThreshold ? Plan.IN_MEMORY : Plan.STORED;
+    }
+
+    private JPAQuery<Member> select(Predicate condition) {
+        return queryFactory
+                .selectFrom(member)
+                .where(condition);
+    }
+
+    private void record(QueryMetrics queryMetrics, Plan plan) {
+        if (queryMetrics != null) {
+            queryMetrics.recordPlan(DECISION, plan.tag());
+        }
+    }
+}
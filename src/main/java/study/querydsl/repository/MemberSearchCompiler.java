@@ -0,0 +1,180 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.QTeam;
+import study.querydsl.repository.support.PreparedQuery;
+import study.querydsl.repository.support.PreparedQueryFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * MemberSearchCondition -> 쿼리
+ *
+ * 조건 값은 전부 Param 으로 바인딩하고, 어떤 조건이 있는지(+정렬, 팀 조건 방식)만으로 쿼리 형태(Shape)를 정한다
+ * 형태별로 PreparedQuery 를 한 번만 만들어두므로 jpql/sql 종류가 조건 조합 수로 고정되고
+ * db 실행 계획 캐시와 인덱스가 같은 sql 을 계속 받게 된다
+ *
+ * 팀 이름 조건은 선택도 힌트로 방식을 고른다
+ * - EXISTS: 회원 쪽 조건(username, 나이)으로 이미 충분히 줄어들면 남은 회원마다 팀을 pk로 확인
+ * - IN: 팀 이름으로 고른 팀이 전체의 일부면 팀 id 부터 구해서 member.team_id 로 찾는다
+ * - JOIN: 그 외에는 옵티마이저가 조인 순서를 고르게 둔다
+ */
+@Component
+public class MemberSearchCompiler {
+
+    static final Param<String> USERNAME = new Param<>(String.class, "username");
+    static final Param<String> TEAM_NAME = new Param<>(String.class, "teamName");
+    static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+
+    //팀 이름 하나가 고르는 팀 비율이 이보다 작으면 IN
+    static final double IN_THRESHOLD = 0.05;
+
+    public enum TeamFilter {
+        NONE, JOIN, EXISTS, IN
+    }
+
+    record Shape(boolean username, boolean ageGoe, boolean ageLoe, TeamFilter teamFilter, MemberSearchCondition.Sort sort) {
+    }
+
+    private final JPAQueryFactory queryFactory;
+    private final PreparedQueryFactory preparedQueryFactory;
+    private final Map<Shape, PreparedQuery<MemberDto>> compiled = new ConcurrentHashMap<>();
+    private final int teamCount;
+    private final int ageSpan;
+    private final double usernameSelectivity;
+
+    public MemberSearchCompiler(JPAQueryFactory queryFactory, PreparedQueryFactory preparedQueryFactory,
+                                @Value("${member-search.hints.team-count:100}") int teamCount,
+                                @Value("${member-search.hints.age-span:100}") int ageSpan,
+                                @Value("${member-search.hints.username-selectivity:0.0001}") double usernameSelectivity) {
+        this.queryFactory = queryFactory;
+        this.preparedQueryFactory = preparedQueryFactory;
+        this.teamCount = Math.max(teamCount, 1);
+        this.ageSpan = Math.max(ageSpan, 1);
+        this.usernameSelectivity = usernameSelectivity;
+    }
+
+    public PreparedQuery.Execution<MemberDto> compile(MemberSearchCondition condition) {
+        Shape shape = shapeOf(condition);
+        PreparedQuery.Execution<MemberDto> execution = compiled.computeIfAbsent(shape, this::prepare).execution();
+        if (shape.username()) {
+            execution.with(USERNAME, condition.getUsername());
+        }
+        if (shape.teamFilter() != TeamFilter.NONE) {
+            execution.with(TEAM_NAME, condition.getTeamName());
+        }
+        if (shape.ageGoe()) {
+            execution.with(AGE_GOE, condition.getAgeGoe());
+        }
+        if (shape.ageLoe()) {
+            execution.with(AGE_LOE, condition.getAgeLoe());
+        }
+        return execution;
+    }
+
+    public String jpqlOf(MemberSearchCondition condition) {
+        return compiled.computeIfAbsent(shapeOf(condition), this::prepare).getJpql();
+    }
+
+    //지금까지 만들어진 쿼리 형태 수
+    public int compiledShapes() {
+        return compiled.size();
+    }
+
+    Shape shapeOf(MemberSearchCondition condition) {
+        MemberSearchCondition.Sort sort = condition.getSort() == null ? MemberSearchCondition.Sort.USERNAME_ASC : condition.getSort();
+        return new Shape(StringUtils.hasText(condition.getUsername()),
+                condition.getAgeGoe() != null,
+                condition.getAgeLoe() != null,
+                teamFilter(condition),
+                sort);
+    }
+
+    public TeamFilter teamFilter(MemberSearchCondition condition) {
+        if (!StringUtils.hasText(condition.getTeamName())) {
+            return TeamFilter.NONE;
+        }
+        double teamSide = 1.0 / teamCount;
+        if (memberSelectivity(condition) < teamSide) {
+            return TeamFilter.EXISTS;
+        }
+        return teamSide <= IN_THRESHOLD ? TeamFilter.IN : TeamFilter.JOIN;
+    }
+
+    //회원 쪽 조건이 남기는 비율 추정 (조건끼리 독립이라고 본다)
+    private double memberSelectivity(MemberSearchCondition condition) {
+        double selectivity = 1.0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            selectivity *= usernameSelectivity;
+        }
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            int goe = condition.getAgeGoe() == null ? 0 : condition.getAgeGoe();
+            int loe = condition.getAgeLoe() == null ? ageSpan - 1 : condition.getAgeLoe();
+            selectivity *= Math.min(1.0, Math.max(0, loe - goe + 1) / (double) ageSpan);
+        }
+        return selectivity;
+    }
+
+    private PreparedQuery<MemberDto> prepare(Shape shape) {
+        JPAQuery<MemberDto> query = queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member);
+
+        BooleanBuilder where = new BooleanBuilder();
+        if (shape.username()) {
+            where.and(member.username.eq(USERNAME));
+        }
+        if (shape.ageGoe()) {
+            where.and(member.age.goe(AGE_GOE));
+        }
+        if (shape.ageLoe()) {
+            where.and(member.age.loe(AGE_LOE));
+        }
+        QTeam teamSub = new QTeam("teamSub");
+        switch (shape.teamFilter()) {
+            case JOIN -> {
+                query.join(member.team, team);
+                where.and(team.name.eq(TEAM_NAME));
+            }
+            case EXISTS -> where.and(JPAExpressions
+                    .selectOne()
+                    .from(teamSub)
+                    .where(teamSub.id.eq(member.team.id), teamSub.name.eq(TEAM_NAME))
+                    .exists());
+            case IN -> where.and(member.team.id.in(JPAExpressions
+                    .select(teamSub.id)
+                    .from(teamSub)
+                    .where(teamSub.name.eq(TEAM_NAME))));
+            case NONE -> {
+            }
+        }
+        return preparedQueryFactory.prepare(query
+                .where(where)
+                .orderBy(orderOf(shape.sort()), member.id.asc()));
+    }
+
+    private static OrderSpecifier<?> orderOf(MemberSearchCondition.Sort sort) {
+        return switch (sort) {
+            case USERNAME_ASC -> member.username.asc();
+            case USERNAME_DESC -> member.username.desc();
+            case AGE_ASC -> member.age.asc();
+            case AGE_DESC -> member.age.desc();
+        };
+    }
+}
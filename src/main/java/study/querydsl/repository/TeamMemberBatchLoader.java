@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * 컬렉션 fetch join + 페이징처럼 fetch join을 쓸 수 없을 때
+ * 아직 초기화되지 않은 Team/Member 식별자를 모아서 배치 크기만큼 in 쿼리 한 번으로 가져온다
+ *
+ * 전역 설정(hibernate.default_batch_fetch_size)도 같은 일을 하지만
+ * 이 로더는 호출 시점과 범위가 코드에 드러나고, 한 번에 미리 로딩해둘 수 있다
+ */
+@Repository
+public class TeamMemberBatchLoader {
+
+    private final JPAQueryFactory queryFactory;
+    private final PersistenceUnitUtil persistenceUnitUtil;
+    private final int batchSize;
+
+    public TeamMemberBatchLoader(JPAQueryFactory queryFactory, EntityManager em,
+                                 @Value("${batch-loader.size:${spring.jpa.properties.hibernate.default_batch_fetch_size:100}}") int batchSize) {
+        this.queryFactory = queryFactory;
+        this.persistenceUnitUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    //member.getTeam() 프록시들을 초기화. 같은 영속성 컨텍스트에 팀이 올라오므로 이후 프록시 접근 시 쿼리가 나가지 않는다
+    public void loadTeams(Collection<Member> members) {
+        Set<Long> teamIds = new LinkedHashSet<>();
+        for (Member m : members) {
+            Team t = m.getTeam();
+            if (t != null && !Hibernate.isInitialized(t)) {
+                teamIds.add((Long) persistenceUnitUtil.getIdentifier(t));
+            }
+        }
+        for (List<Long> chunk : chunks(teamIds)) {
+            queryFactory
+                    .selectFrom(team)
+                    .where(team.id.in(chunk))
+                    .fetch();
+        }
+    }
+
+    //team.getMembers() 컬렉션 초기화. 이미 영속 상태인 팀에 컬렉션 fetch join을 하면 그 컬렉션이 채워진다
+    public void initializeMembers(Collection<Team> teams) {
+        Set<Long> teamIds = new LinkedHashSet<>();
+        for (Team t : teams) {
+            if (!Hibernate.isInitialized(t.getMembers())) {
+                teamIds.add(t.getId());
+            }
+        }
+        for (List<Long> chunk : chunks(teamIds)) {
+            queryFactory
+                    .selectFrom(team)
+                    .leftJoin(team.members, member).fetchJoin()
+                    .where(team.id.in(chunk))
+                    .fetch();
+        }
+    }
+
+    //컬렉션을 건드리지 않고 팀 id별 회원 목록만 필요할 때
+    public Map<Long, List<Member>> membersByTeamId(Collection<Long> teamIds) {
+        Map<Long, List<Member>> result = new HashMap<>();
+        for (List<Long> chunk : chunks(new LinkedHashSet<>(teamIds))) {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .where(member.team.id.in(chunk))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            result.putAll(members.stream()
+                    .collect(Collectors.groupingBy(m -> (Long) persistenceUnitUtil.getIdentifier(m.getTeam()))));
+        }
+        return result;
+    }
+
+    private List<List<Long>> chunks(Set<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += batchSize) {
+            chunks.add(all.subList(from, Math.min(from + batchSize, all.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,40 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+import java.util.Optional;
+
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.support.QueryCacheSupport.cacheable;
+
+@Repository
+@RequiredArgsConstructor
+public class TeamRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    //id 조회는 2차 캐시에서 바로 꺼낸다
+    public Optional<Team> findById(Long id) {
+        return Optional.ofNullable(em.find(Team.class, id));
+    }
+
+    public List<Team> findByName(String name) {
+        return cacheable(queryFactory
+                .selectFrom(team)
+                .where(team.name.eq(name)))
+                .fetch();
+    }
+
+    public List<Team> findAll() {
+        return cacheable(queryFactory
+                .selectFrom(team)
+                .orderBy(team.name.asc()))
+                .fetch();
+    }
+}
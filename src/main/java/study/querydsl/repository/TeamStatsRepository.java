@@ -0,0 +1,39 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import study.querydsl.entity.TeamStats;
+
+import java.util.List;
+import java.util.Optional;
+
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+//팀별 나이 집계를 group by 없이 TeamStats 에서 바로 읽는다
+@Repository
+@RequiredArgsConstructor
+public class TeamStatsRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public Optional<TeamStats> findByTeamId(Long teamId) {
+        return Optional.ofNullable(em.find(TeamStats.class, teamId));
+    }
+
+    public List<TeamStats> findByTeamName(String teamName) {
+        return queryFactory
+                .selectFrom(teamStats)
+                .where(teamStats.teamName.eq(teamName))
+                .fetch();
+    }
+
+    public List<TeamStats> findAll() {
+        return queryFactory
+                .selectFrom(teamStats)
+                .orderBy(teamStats.teamName.asc())
+                .fetch();
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.NumberExpression;
+import study.querydsl.entity.Member;
+
+/**
+ * {@link Member#rankOf(int)} 를 querydsl 식으로 (QuerydslBasicTest.complexCase2 의 rankPath)
+ * 벌크 update 로 age 를 바꿀 때 age_rank 도 같은 규칙으로 계산하는 데 쓴다
+ */
+public final class AgeRanks {
+
+    private AgeRanks() {
+    }
+
+    public static NumberExpression<Integer> caseOf(NumberExpression<Integer> age) {
+        return new CaseBuilder()
+                .when(age.between(0, 20)).then(2)
+                .when(age.between(21, 30)).then(1)
+                .otherwise(3);
+    }
+}
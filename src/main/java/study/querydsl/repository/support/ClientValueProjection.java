@@ -0,0 +1,103 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * projection 인자 중 일부를 db 에서 가져오지 않고 미리 정해둔 값으로 채운다
+ * select 절에는 나머지 인자만 나가고, newInstance 에서 원래 자리에 값을 끼워 원래 projection 으로 만든다
+ * 결과가 Tuple 이면 tuple.get(원래 식) 도 그대로 동작한다
+ *
+ * 원래 인자 대신 더 단순한 식을 가져와서 값을 계산할 수도 있다 ({@link Derived}, age + 1 -> age 를 가져와서 +1)
+ * 같은 식은 한 번만 select 한다
+ */
+public final class ClientValueProjection<T> extends FactoryExpressionBase<T> {
+
+    /**
+     * source 를 select 해서 가져온 값으로 원래 인자의 값을 계산한다
+     */
+    public record Derived(Expression<?> source, UnaryOperator<Object> compute) {
+    }
+
+    private final FactoryExpression<T> delegate;
+    private final List<Expression<?>> args;
+    //원래 인자마다 args 의 인덱스, 미리 정해둔 값이면 -1
+    private final int[] slots;
+    private final Object[] clientValues;
+    private final UnaryOperator<Object>[] computes;
+
+    @SuppressWarnings("unchecked")
+    private ClientValueProjection(FactoryExpression<T> delegate, Map<Integer, Object> clientValues, Map<Integer, Derived> derived) {
+        super(delegate.getType());
+        List<Expression<?>> all = delegate.getArgs();
+        this.delegate = delegate;
+        this.slots = new int[all.size()];
+        this.clientValues = new Object[all.size()];
+        this.computes = new UnaryOperator[all.size()];
+        List<Expression<?>> args = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            if (clientValues.containsKey(i)) {
+                slots[i] = -1;
+                this.clientValues[i] = clientValues.get(i);
+                continue;
+            }
+            Expression<?> source = all.get(i);
+            if (derived.containsKey(i)) {
+                source = derived.get(i).source();
+                computes[i] = derived.get(i).compute();
+            }
+            int slot = args.indexOf(source);
+            if (slot < 0) {
+                slot = args.size();
+                args.add(source);
+            }
+            slots[i] = slot;
+        }
+        if (args.isEmpty()) {
+            throw new IllegalArgumentException("db 에서 가져올 인자가 하나는 있어야 합니다: " + delegate);
+        }
+        this.args = Collections.unmodifiableList(args);
+    }
+
+    //clientValues: 원래 인자 위치 -> 값 (null 도 값으로 본다)
+    public static <T> FactoryExpression<T> of(FactoryExpression<T> delegate, Map<Integer, Object> clientValues) {
+        return of(delegate, clientValues, Map.of());
+    }
+
+    //derived: 원래 인자 위치 -> 대신 가져올 식과 계산
+    public static <T> FactoryExpression<T> of(FactoryExpression<T> delegate, Map<Integer, Object> clientValues,
+                                              Map<Integer, Derived> derived) {
+        return clientValues.isEmpty() && derived.isEmpty() ? delegate : new ClientValueProjection<>(delegate, clientValues, derived);
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public T newInstance(Object... row) {
+        Object[] full = new Object[slots.length];
+        for (int i = 0; i < full.length; i++) {
+            if (slots[i] < 0) {
+                full[i] = clientValues[i];
+            } else {
+                full[i] = computes[i] == null ? row[slots[i]] : computes[i].apply(row[slots[i]]);
+            }
+        }
+        return delegate.newInstance(full);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+}
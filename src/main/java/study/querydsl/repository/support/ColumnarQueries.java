@@ -0,0 +1,115 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.monitoring.QueryMetrics;
+
+import java.util.List;
+import java.util.Set;
+
+/*
+ * 분석용 projection 을 List<Tuple> 대신 컬럼 단위로 받는다
+ * 회원 수백만 명의 (username, age, team.name) 을 Tuple 로 받으면 행마다 Tuple + Object[] + Integer 가 남지만
+ * 여기서는 커서(ScrollableResults, forward only)로 fetchSize 만큼씩 읽으면서 바로 int[] / 사전 코드로 옮긴다
+ * 행 객체는 다음 행으로 넘어가면 버려지므로 결과로 남는 것은 배열과 사전뿐이다
+ *
+ * - select 할 수 있는 식: 정수(Integer/Short/Byte), 문자열
+ * - 집계는 IntColumn(sum/avg/min/max), IntGroups(group by) 로 메모리에서 한다
+ * - projection 을 Tuple 로 바꾸는 FactoryExpression 대신 Ops.LIST 로 select 해서 하이버네이트의 Object[] 를 그대로 쓴다
+ */
+@Component
+@RequiredArgsConstructor
+public class ColumnarQueries {
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final Set<Class<?>> INT_TYPES = Set.of(Integer.class, int.class, Short.class, short.class, Byte.class, byte.class);
+
+    private final ObjectProvider<QueryMetrics> metrics;
+
+    @Transactional(readOnly = true)
+    public ColumnarResult fetch(JPAQuery<?> query, Expression<?>... columns) {
+        return fetch(query, DEFAULT_FETCH_SIZE, columns);
+    }
+
+    //커서를 쓰므로 트랜잭션(커넥션)이 열려 있어야 한다
+    @Transactional(readOnly = true)
+    public ColumnarResult fetch(JPAQuery<?> query, int fetchSize, Expression<?>... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("컬럼이 없습니다");
+        }
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize는 1 이상이어야 합니다: " + fetchSize);
+        }
+        Object[] builders = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            builders[i] = builderFor(columns[i]);
+        }
+
+        //넘겨받은 쿼리의 select 절은 그대로 둔다
+        JPAQuery<Object[]> selected = query.clone().select(ExpressionUtils.list(Object[].class, columns));
+        String jpql = selected.toString();
+        QueryMetrics queryMetrics = metrics.getIfAvailable();
+        long start = System.nanoTime();
+        int size = 0;
+        try (ScrollableResults<?> rows = selected.createQuery()
+                .unwrap(org.hibernate.query.Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                Object row = rows.get();
+                //컬럼이 하나면 Object[] 가 아니라 값 자체가 온다
+                if (columns.length == 1) {
+                    add(builders[0], row);
+                } else {
+                    Object[] values = (Object[]) row;
+                    for (int i = 0; i < builders.length; i++) {
+                        add(builders[i], values[i]);
+                    }
+                }
+                size++;
+            }
+        } catch (RuntimeException e) {
+            if (queryMetrics != null) {
+                queryMetrics.recordError(jpql);
+            }
+            throw e;
+        }
+        if (queryMetrics != null) {
+            queryMetrics.record(jpql, System.nanoTime() - start, size);
+        }
+
+        Object[] built = new Object[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            built[i] = builders[i] instanceof IntColumn.Builder ints ? ints.build() : ((DictionaryStringColumn.Builder) builders[i]).build();
+        }
+        return new ColumnarResult(List.of(columns), built, size);
+    }
+
+    private Object builderFor(Expression<?> column) {
+        Class<?> type = column.getType();
+        if (INT_TYPES.contains(type)) {
+            return new IntColumn.Builder();
+        }
+        if (type == String.class) {
+            return new DictionaryStringColumn.Builder();
+        }
+        throw new IllegalArgumentException("컬럼으로 받을 수 없는 타입입니다: " + type.getName() + " (" + column + ")");
+    }
+
+    private void add(Object builder, Object value) {
+        if (builder instanceof IntColumn.Builder ints) {
+            ints.add(value);
+        } else {
+            ((DictionaryStringColumn.Builder) builder).add(value);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+
+import java.util.List;
+
+/**
+ * {@link ColumnarQueries}의 결과. 행(Tuple) 대신 select 한 식마다 컬럼 하나
+ * 정수 식은 {@link IntColumn}, 문자열 식은 {@link DictionaryStringColumn}
+ */
+public final class ColumnarResult {
+
+    private final List<Expression<?>> expressions;
+    private final Object[] columns;
+    private final int size;
+
+    ColumnarResult(List<Expression<?>> expressions, Object[] columns, int size) {
+        this.expressions = expressions;
+        this.columns = columns;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public IntColumn ints(Expression<? extends Number> expr) {
+        return column(expr, IntColumn.class);
+    }
+
+    public DictionaryStringColumn strings(Expression<String> expr) {
+        return column(expr, DictionaryStringColumn.class);
+    }
+
+    private <C> C column(Expression<?> expr, Class<C> type) {
+        int index = expressions.indexOf(expr);
+        if (index < 0) {
+            throw new IllegalArgumentException("select 하지 않은 식입니다: " + expr);
+        }
+        return type.cast(columns[index]);
+    }
+}
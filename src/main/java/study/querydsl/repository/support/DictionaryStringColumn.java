@@ -0,0 +1,78 @@
+package study.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 문자열 컬럼을 사전(dictionary) + 행별 코드(int[])로 들고 있는다
+ * team.name 처럼 값의 종류가 적은 컬럼은 같은 문자열을 한 번만 들고, 그룹 집계도 코드(배열 인덱스)로 한다
+ * null 은 코드 -1
+ */
+public final class DictionaryStringColumn {
+
+    public static final int NULL = -1;
+
+    private final int[] codes;
+    private final String[] dictionary;
+    private final Map<String, Integer> index;
+
+    private DictionaryStringColumn(int[] codes, String[] dictionary, Map<String, Integer> index) {
+        this.codes = codes;
+        this.dictionary = dictionary;
+        this.index = index;
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    public String get(int row) {
+        int code = codes[row];
+        return code == NULL ? null : dictionary[code];
+    }
+
+    public int code(int row) {
+        return codes[row];
+    }
+
+    //사전에 들어있는 서로 다른 값의 수 (null 제외)
+    public int cardinality() {
+        return dictionary.length;
+    }
+
+    public String value(int code) {
+        return dictionary[code];
+    }
+
+    //없는 값이면 NULL
+    public int codeOf(String value) {
+        return value == null ? NULL : index.getOrDefault(value, NULL);
+    }
+
+    static final class Builder {
+
+        private int[] codes = new int[1024];
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> index = new HashMap<>();
+        private int size;
+
+        void add(Object value) {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size * 2);
+            }
+            codes[size++] = value == null ? NULL : index.computeIfAbsent((String) value, this::append);
+        }
+
+        private int append(String value) {
+            dictionary.add(value);
+            return dictionary.size() - 1;
+        }
+
+        DictionaryStringColumn build() {
+            return new DictionaryStringColumn(Arrays.copyOf(codes, size), dictionary.toArray(String[]::new), index);
+        }
+    }
+}
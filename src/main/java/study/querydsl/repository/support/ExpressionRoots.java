@@ -0,0 +1,107 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 식 안에서 참조하는 루트 path(별칭)를 모은다
+ * 예) member.team.name -> member, team.name -> team
+ */
+public final class ExpressionRoots implements Visitor<Void, Set<Path<?>>> {
+
+    private static final ExpressionRoots INSTANCE = new ExpressionRoots();
+
+    private ExpressionRoots() {
+    }
+
+    public static Set<Path<?>> of(Expression<?>... expressions) {
+        Set<Path<?>> roots = new HashSet<>();
+        for (Expression<?> expression : expressions) {
+            if (expression != null) {
+                expression.accept(INSTANCE, roots);
+            }
+        }
+        return roots;
+    }
+
+    //from/join 대상이 쿼리 안에서 쓰는 별칭. join(member.team, team) 이면 team
+    public static Path<?> aliasOf(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        if (target instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+            return (Path<?>) operation.getArg(1);
+        }
+        return (Path<?>) target;
+    }
+
+    @Override
+    public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+        return null;
+    }
+
+    @Override
+    public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+        for (Expression<?> arg : expr.getArgs()) {
+            arg.accept(this, roots);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+        for (Expression<?> arg : expr.getArgs()) {
+            arg.accept(this, roots);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Path<?> expr, Set<Path<?>> roots) {
+        roots.add(expr.getRoot());
+        return null;
+    }
+
+    //서브쿼리 안에서 바깥 별칭을 참조하면(상관 서브쿼리) 그 별칭도 포함된다
+    @Override
+    public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+        QueryMetadata metadata = expr.getMetadata();
+        Set<Path<?>> inner = new HashSet<>();
+        Set<Path<?>> declared = new HashSet<>();
+        for (JoinExpression join : metadata.getJoins()) {
+            declared.add(aliasOf(join));
+            join.getTarget().accept(this, inner);
+            if (join.getCondition() != null) {
+                join.getCondition().accept(this, inner);
+            }
+        }
+        for (Expression<?> e : new Expression<?>[]{metadata.getProjection(), metadata.getWhere(), metadata.getHaving()}) {
+            if (e != null) {
+                e.accept(this, inner);
+            }
+        }
+        for (Expression<?> e : metadata.getGroupBy()) {
+            e.accept(this, inner);
+        }
+        inner.removeAll(declared);
+        roots.addAll(inner);
+        return null;
+    }
+
+    @Override
+    public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+        for (Object arg : expr.getArgs()) {
+            if (arg instanceof Expression<?> e) {
+                e.accept(this, roots);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,283 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Projections}의 bean/fields/constructor와 같은 사용법이지만 행마다 리플렉션을 쓰지 않는다
+ *
+ * Projections.bean/fields는 행마다 Method.invoke/Field.set을, constructor는 인자 변환용 배열을 새로 만든 뒤
+ * Constructor.newInstance를 호출한다. 여기서는 처음 사용할 때 생성자/setter/필드에 대한 MethodHandle을 만들어
+ * dto 타입별로 캐시해두고, 행마다 invokeExact로 바로 호출한다
+ *
+ * 별칭 매핑(member.username.as("name"), ExpressionUtils.as(subQuery, "age"))도 Projections와 같게 동작한다
+ */
+public final class FastProjections {
+
+    private static final Map<Object, Object> CACHE = new ConcurrentHashMap<>();
+
+    private FastProjections() {
+    }
+
+    public static <T> FactoryExpression<T> constructor(Class<? extends T> type, Expression<?>... exprs) {
+        List<Class<?>> argTypes = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            argTypes.add(expr.getType());
+        }
+        ConstructorHandle handle = (ConstructorHandle) CACHE.computeIfAbsent(
+                new ConstructorKey(type, argTypes), key -> ConstructorHandle.create(type, argTypes));
+        return new ConstructorProjection<>(type, List.of(exprs), handle);
+    }
+
+    //setter(setXxx)로 값을 넣는다. 기본 생성자 필요
+    public static <T> FactoryExpression<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return setterProjection(type, false, exprs);
+    }
+
+    //필드에 바로 값을 넣는다. 기본 생성자 필요
+    public static <T> FactoryExpression<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+        return setterProjection(type, true, exprs);
+    }
+
+    private static <T> FactoryExpression<T> setterProjection(Class<? extends T> type, boolean fieldAccess, Expression<?>... exprs) {
+        List<String> names = new ArrayList<>(exprs.length);
+        List<Expression<?>> args = new ArrayList<>(exprs.length);
+        for (Expression<?> expr : exprs) {
+            if (expr instanceof Path<?> path) {
+                names.add(path.getMetadata().getName());
+                args.add(expr);
+            } else if (expr instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+                names.add(((Path<?>) operation.getArg(1)).getMetadata().getName());
+                args.add(operation.getArg(0));
+            } else {
+                throw new IllegalArgumentException("path 또는 as()로 별칭을 준 식만 쓸 수 있습니다: " + expr);
+            }
+        }
+        BeanHandle handle = (BeanHandle) CACHE.computeIfAbsent(
+                new BeanKey(type, names, fieldAccess), key -> BeanHandle.create(type, names, fieldAccess));
+        return new BeanProjection<>(type, List.copyOf(args), handle);
+    }
+
+    private record ConstructorKey(Class<?> type, List<Class<?>> argTypes) {
+    }
+
+    private record BeanKey(Class<?> type, List<String> names, boolean fieldAccess) {
+    }
+
+    //(Object[]) -> Object 로 맞춰둔 생성자 핸들
+    private static final class ConstructorHandle {
+
+        private final MethodHandle handle;
+        //null이 들어오면 안 되는 primitive 파라미터의 기본값 (나머지는 null)
+        private final Object[] primitiveDefaults;
+
+        private ConstructorHandle(MethodHandle handle, Object[] primitiveDefaults) {
+            this.handle = handle;
+            this.primitiveDefaults = primitiveDefaults;
+        }
+
+        static ConstructorHandle create(Class<?> type, List<Class<?>> argTypes) {
+            Constructor<?> constructor = findConstructor(type, argTypes);
+            try {
+                Class<?>[] parameterTypes = constructor.getParameterTypes();
+                MethodHandle handle = MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                        .unreflectConstructor(constructor)
+                        .asSpreader(Object[].class, parameterTypes.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                Object[] defaults = new Object[parameterTypes.length];
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    defaults[i] = defaultValue(parameterTypes[i]);
+                }
+                return new ConstructorHandle(handle, defaults);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException(type.getName() + " 생성자에 접근할 수 없습니다", e);
+            }
+        }
+
+        Object newInstance(Object[] args) throws Throwable {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] == null && primitiveDefaults[i] != null) {
+                    args[i] = primitiveDefaults[i];
+                }
+            }
+            return (Object) handle.invokeExact(args);
+        }
+
+        private static Constructor<?> findConstructor(Class<?> type, List<Class<?>> argTypes) {
+            for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+                Class<?>[] parameterTypes = constructor.getParameterTypes();
+                if (parameterTypes.length != argTypes.size()) {
+                    continue;
+                }
+                boolean matches = true;
+                for (int i = 0; i < parameterTypes.length && matches; i++) {
+                    matches = wrap(parameterTypes[i]).isAssignableFrom(wrap(argTypes.get(i)));
+                }
+                if (matches) {
+                    return constructor;
+                }
+            }
+            throw new IllegalArgumentException(type.getName() + "에 " + argTypes + " 타입을 받는 생성자가 없습니다");
+        }
+    }
+
+    private static final class BeanHandle {
+
+        private final MethodHandle constructor;
+        private final MethodHandle[] setters;
+
+        private BeanHandle(MethodHandle constructor, MethodHandle[] setters) {
+            this.constructor = constructor;
+            this.setters = setters;
+        }
+
+        static BeanHandle create(Class<?> type, List<String> names, boolean fieldAccess) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+                MethodHandle[] setters = new MethodHandle[names.size()];
+                for (int i = 0; i < setters.length; i++) {
+                    MethodHandle setter = fieldAccess ? fieldSetter(type, names.get(i)) : methodSetter(lookup, type, names.get(i));
+                    setters[i] = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+                }
+                return new BeanHandle(constructor, setters);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalArgumentException(type.getName() + "에 기본 생성자가 없거나 접근할 수 없습니다", e);
+            }
+        }
+
+        Object newInstance(Object[] args) throws Throwable {
+            Object bean = (Object) constructor.invokeExact();
+            for (int i = 0; i < setters.length; i++) {
+                //Projections.bean/fields처럼 null은 건너뛴다 (primitive 필드는 기본값 유지)
+                if (args[i] != null) {
+                    setters[i].invokeExact(bean, args[i]);
+                }
+            }
+            return bean;
+        }
+
+        private static MethodHandle methodSetter(MethodHandles.Lookup lookup, Class<?> type, String name) throws IllegalAccessException {
+            String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals(setterName) && method.getParameterCount() == 1) {
+                    return lookup.unreflect(method);
+                }
+            }
+            throw new IllegalArgumentException(type.getName() + "에 " + setterName + "(..)가 없습니다");
+        }
+
+        private static MethodHandle fieldSetter(Class<?> type, String name) throws IllegalAccessException {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())
+                            && !Modifier.isFinal(field.getModifiers())) {
+                        return MethodHandles.privateLookupIn(c, MethodHandles.lookup()).unreflectSetter(field);
+                    }
+                }
+            }
+            throw new IllegalArgumentException(type.getName() + "에 " + name + " 필드가 없습니다");
+        }
+    }
+
+    private static final class ConstructorProjection<T> extends FactoryExpressionBase<T> {
+
+        private final List<Expression<?>> args;
+        private final ConstructorHandle handle;
+
+        ConstructorProjection(Class<? extends T> type, List<Expression<?>> args, ConstructorHandle handle) {
+            super(type);
+            this.args = args;
+            this.handle = handle;
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T newInstance(Object... values) {
+            try {
+                return (T) handle.newInstance(values);
+            } catch (Throwable e) {
+                throw new ExpressionException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o == this || (o instanceof ConstructorProjection<?> other
+                    && getType().equals(other.getType()) && args.equals(other.args));
+        }
+    }
+
+    private static final class BeanProjection<T> extends FactoryExpressionBase<T> {
+
+        private final List<Expression<?>> args;
+        private final BeanHandle handle;
+
+        BeanProjection(Class<? extends T> type, List<Expression<?>> args, BeanHandle handle) {
+            super(type);
+            this.args = args;
+            this.handle = handle;
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T newInstance(Object... values) {
+            try {
+                return (T) handle.newInstance(values);
+            } catch (Throwable e) {
+                throw new ExpressionException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> v, C context) {
+            return v.visit(this, context);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o == this || (o instanceof BeanProjection<?> other
+                    && getType().equals(other.getType()) && args.equals(other.args) && handle == other.handle);
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        }
+        try {
+            return MethodHandles.zero(type).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
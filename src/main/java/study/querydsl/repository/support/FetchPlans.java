@@ -0,0 +1,160 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.SimplePath;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.AttributeNode;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * 엔티티에 선언한 @NamedEntityGraph 를 이름으로 querydsl 쿼리에 적용한다 (Member.WITH_TEAM, Team.WITH_MEMBERS)
+ *
+ * 1. to-one 만 있는 그래프: fetchgraph 힌트로 한 번에 조회 (페이징 그대로)
+ * 2. 컬렉션이 있는 그래프 + 페이징: 컬렉션 fetch join 에 limit 을 걸면 하이버네이트가 메모리에서 페이징하므로
+ *    id 만 먼저 페이징하고, 그 id 들로 그래프를 조회한 뒤 원래 순서로 맞춘다 (쿼리 2번)
+ *    컬렉션 조건으로 join 하면 행이 루트마다 여러 개이므로 id 로 group by 해서 루트 단위로 페이징한다
+ * 3. 컬렉션이 두 개 이상인 그래프: 한 쿼리에 같이 걸면 카테시안 곱이 되므로 첫 컬렉션만 fetch 하고
+ *    나머지는 컬렉션마다 id in 쿼리를 한 번씩 더 날려 채운다
+ *
+ * 하위 그래프(subgraph)는 컬렉션이 하나 이하일 때만 그대로 적용된다
+ */
+@Component
+@RequiredArgsConstructor
+public class FetchPlans {
+
+    static final String FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+
+    public <T> List<T> fetch(JPAQuery<T> query, String graphName) {
+        @SuppressWarnings("unchecked")
+        EntityPath<T> root = (EntityPath<T>) ExpressionRoots.aliasOf(query.getMetadata().getJoins().get(0));
+        @SuppressWarnings("unchecked")
+        Class<T> type = (Class<T>) root.getType();
+        EntityGraph<?> graph = em.getEntityGraph(graphName);
+        EntityType<?> entityType = em.getMetamodel().entity(type);
+
+        List<String> collections = new ArrayList<>();
+        List<String> singulars = new ArrayList<>();
+        for (AttributeNode<?> node : graph.getAttributeNodes()) {
+            String name = node.getAttributeName();
+            (entityType.getAttribute(name).isCollection() ? collections : singulars).add(name);
+        }
+        EntityGraph<?> fetched = collections.size() <= 1 ? graph : boundedGraph(type, singulars, collections.get(0));
+
+        SimplePath<Object> id = idPath(root, entityType);
+        List<T> result;
+        if (!collections.isEmpty() && isPaged(query)) {
+            result = fetchByIds(query, root, id, fetched);
+        } else {
+            result = query.setHint(FETCH_GRAPH, fetched).fetch();
+        }
+
+        //나머지 컬렉션은 컬렉션마다 한 번씩 같은 id 로 다시 조회해 이미 영속성 컨텍스트에 있는 엔티티의 컬렉션을 채운다
+        if (collections.size() > 1 && !result.isEmpty()) {
+            List<Object> ids = identifiers(result);
+            for (String collection : collections.subList(1, collections.size())) {
+                EntityGraph<T> only = em.createEntityGraph(type);
+                only.addAttributeNodes(collection);
+                queryFactory.selectFrom(root).where(id.in(ids)).setHint(FETCH_GRAPH, only).fetch();
+            }
+        }
+        return result;
+    }
+
+    private <T> List<T> fetchByIds(JPAQuery<T> query, EntityPath<T> root, SimplePath<Object> id, EntityGraph<?> graph) {
+        List<Object> ids = rootIds(query, id).fetch();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<T> loaded = queryFactory
+                .selectFrom(root)
+                .where(id.in(ids))
+                .setHint(FETCH_GRAPH, graph)
+                .fetch();
+
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        Map<Object, T> byId = new LinkedHashMap<>();
+        for (T entity : loaded) {
+            byId.put(util.getIdentifier(entity), entity);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Object key : ids) {
+            T entity = byId.get(key);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+
+    /*
+     * join 이 있으면 한 루트가 여러 행이 될 수 있으므로 limit 이 행이 아니라 루트에 걸리도록 id 로 group by 한다
+     * 정렬 키는 루트가 처음 나오는 위치가 되도록 오름차순은 min, 내림차순은 max 로 바꾼다
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private JPAQuery<Object> rootIds(JPAQuery<?> query, SimplePath<Object> id) {
+        JPAQuery<Object> ids = query.clone().select(id);
+        QueryMetadata metadata = ids.getMetadata();
+        if (metadata.getJoins().size() == 1 || !metadata.getGroupBy().isEmpty()) {
+            return ids;
+        }
+        List<OrderSpecifier<?>> orders = new ArrayList<>(metadata.getOrderBy());
+        metadata.clearOrderBy();
+        metadata.addGroupBy(id);
+        for (OrderSpecifier<?> order : orders) {
+            Expression<?> target = order.getTarget();
+            if (!target.equals(id)) {
+                target = Expressions.operation(target.getType(),
+                        order.isAscending() ? Ops.AggOps.MIN_AGG : Ops.AggOps.MAX_AGG, target);
+            }
+            metadata.addOrderBy(new OrderSpecifier(order.getOrder(), target, order.getNullHandling()));
+        }
+        return ids;
+    }
+
+    private SimplePath<Object> idPath(EntityPath<?> root, EntityType<?> entityType) {
+        String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        return Expressions.path(Object.class, root, idName);
+    }
+
+    private List<Object> identifiers(List<?> entities) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<Object> ids = new ArrayList<>(entities.size());
+        for (Object entity : entities) {
+            ids.add(util.getIdentifier(entity));
+        }
+        return ids;
+    }
+
+    private boolean isPaged(JPAQuery<?> query) {
+        QueryModifiers modifiers = query.getMetadata().getModifiers();
+        return modifiers.getLimit() != null || modifiers.getOffset() != null;
+    }
+
+    private <T> EntityGraph<T> boundedGraph(Class<T> type, List<String> singulars, String collection) {
+        EntityGraph<T> graph = em.createEntityGraph(type);
+        singulars.forEach(graph::addAttributeNodes);
+        graph.addAttributeNodes(collection);
+        return graph;
+    }
+}
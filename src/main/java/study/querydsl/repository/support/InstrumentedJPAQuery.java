@@ -0,0 +1,78 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import study.querydsl.monitoring.QueryMetrics;
+
+import java.util.List;
+
+/**
+ * fetch/fetchOne 실행 시간과 결과 행 수를 jpql(쿼리 형태) 별로 {@link QueryMetrics}에 기록하는 JPAQuery
+ * jpql 은 querydsl 이 쿼리를 만들면서 직렬화한 문자열(logQuery)을 그대로 쓴다
+ * clone() 으로 만든 쿼리(count 쿼리, 서브쿼리 분리 등)도 계속 기록된다
+ */
+public class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryMetrics metrics;
+    private String jpql;
+
+    public InstrumentedJPAQuery(EntityManager em, QueryMetrics metrics) {
+        super(em);
+        this.metrics = metrics;
+    }
+
+    public InstrumentedJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata, QueryMetrics metrics) {
+        super(em, templates, metadata);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public InstrumentedJPAQuery<T> clone(EntityManager em, JPQLTemplates templates) {
+        InstrumentedJPAQuery<T> q = new InstrumentedJPAQuery<>(em, templates, getMetadata().clone(), metrics);
+        q.clone(this);
+        return q;
+    }
+
+    @Override
+    protected void logQuery(String queryString) {
+        jpql = queryString;
+        super.logQuery(queryString);
+    }
+
+    @Override
+    public List<T> fetch() {
+        jpql = null;
+        long start = System.nanoTime();
+        try {
+            List<T> results = super.fetch();
+            metrics.record(jpql, System.nanoTime() - start, results.size());
+            return results;
+        } catch (RuntimeException e) {
+            recordError();
+            throw e;
+        }
+    }
+
+    @Override
+    public T fetchOne() {
+        jpql = null;
+        long start = System.nanoTime();
+        try {
+            T result = super.fetchOne();
+            metrics.record(jpql, System.nanoTime() - start, result == null ? 0 : 1);
+            return result;
+        } catch (RuntimeException e) {
+            recordError();
+            throw e;
+        }
+    }
+
+    //직렬화 전에 실패했으면 어떤 쿼리인지 알 수 없으므로 남기지 않는다
+    private void recordError() {
+        if (jpql != null) {
+            metrics.recordError(jpql);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import study.querydsl.monitoring.QueryMetrics;
+
+//select/selectFrom/from 이 모두 query()를 거치므로 여기서 InstrumentedJPAQuery 를 만들어준다
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final QueryMetrics metrics;
+
+    public InstrumentedJPAQueryFactory(EntityManager em, QueryMetrics metrics) {
+        super(em);
+        this.em = em;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new InstrumentedJPAQuery<Void>(em, metrics);
+    }
+}
@@ -0,0 +1,102 @@
+package study.querydsl.repository.support;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+
+/**
+ * 정수 컬럼을 int[] 하나로 들고 있는다 (행마다 Integer 를 만들지 않는다)
+ * null 은 별도 비트셋으로 표시하고, 집계에서는 sql 과 같게 null 을 건너뛴다
+ */
+public final class IntColumn {
+
+    private final int[] values;
+    private final BitSet nulls;
+
+    private IntColumn(int[] values, BitSet nulls) {
+        this.values = values;
+        this.nulls = nulls;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    //null 인 행은 0
+    public int get(int row) {
+        return values[row];
+    }
+
+    public int[] toArray() {
+        return values.clone();
+    }
+
+    public long count() {
+        return values.length - nulls.cardinality();
+    }
+
+    public long sum() {
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    public OptionalDouble avg() {
+        long count = count();
+        return count == 0 ? OptionalDouble.empty() : OptionalDouble.of((double) sum() / count);
+    }
+
+    public OptionalInt min() {
+        int min = Integer.MAX_VALUE;
+        boolean found = false;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] <= min && !nulls.get(i)) {
+                min = values[i];
+                found = true;
+            }
+        }
+        return found ? OptionalInt.of(min) : OptionalInt.empty();
+    }
+
+    public OptionalInt max() {
+        int max = Integer.MIN_VALUE;
+        boolean found = false;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] >= max && !nulls.get(i)) {
+                max = values[i];
+                found = true;
+            }
+        }
+        return found ? OptionalInt.of(max) : OptionalInt.empty();
+    }
+
+    static final class Builder {
+
+        private int[] values = new int[1024];
+        private final BitSet nulls = new BitSet();
+        private int size;
+
+        void add(Object value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (value == null) {
+                nulls.set(size);
+            } else {
+                values[size] = ((Number) value).intValue();
+            }
+            size++;
+        }
+
+        IntColumn build() {
+            return new IntColumn(Arrays.copyOf(values, size), nulls);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.repository.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 사전 컬럼의 코드로 묶어서 정수 컬럼을 집계한다 (group by key + count/sum/avg/min/max)
+ * 그룹마다 배열 한 칸씩이라 행을 한 번 훑는 동안 해시 조회나 박싱이 없다
+ * 값이 null 인 행은 집계에서 빠지고, 키가 null 인 행은 key = null 그룹으로 모인다 (sql group by 와 같게)
+ */
+public final class IntGroups {
+
+    private final DictionaryStringColumn keys;
+    //0번은 null 키, 나머지는 사전 코드 + 1
+    private final long[] counts;
+    private final long[] sums;
+    private final int[] mins;
+    private final int[] maxs;
+    private final boolean[] present;
+
+    private IntGroups(DictionaryStringColumn keys) {
+        int slots = keys.cardinality() + 1;
+        this.keys = keys;
+        this.counts = new long[slots];
+        this.sums = new long[slots];
+        this.mins = new int[slots];
+        this.maxs = new int[slots];
+        this.present = new boolean[slots];
+        Arrays.fill(mins, Integer.MAX_VALUE);
+        Arrays.fill(maxs, Integer.MIN_VALUE);
+    }
+
+    public static IntGroups of(DictionaryStringColumn keys, IntColumn values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("컬럼 길이가 다릅니다: " + keys.size() + " != " + values.size());
+        }
+        IntGroups groups = new IntGroups(keys);
+        for (int row = 0; row < keys.size(); row++) {
+            int slot = keys.code(row) + 1;
+            groups.present[slot] = true;
+            if (values.isNull(row)) {
+                continue;
+            }
+            int value = values.get(row);
+            groups.counts[slot]++;
+            groups.sums[slot] += value;
+            if (value < groups.mins[slot]) {
+                groups.mins[slot] = value;
+            }
+            if (value > groups.maxs[slot]) {
+                groups.maxs[slot] = value;
+            }
+        }
+        return groups;
+    }
+
+    //없는 키면 null
+    public Group get(String key) {
+        int code = keys.codeOf(key);
+        if (key != null && code == DictionaryStringColumn.NULL) {
+            return null;
+        }
+        int slot = code + 1;
+        return present[slot] ? group(slot) : null;
+    }
+
+    //사전 순서(처음 나온 순서). null 키 그룹이 있으면 맨 앞
+    public List<Group> groups() {
+        List<Group> groups = new ArrayList<>();
+        for (int slot = 0; slot < present.length; slot++) {
+            if (present[slot]) {
+                groups.add(group(slot));
+            }
+        }
+        return groups;
+    }
+
+    private Group group(int slot) {
+        String key = slot == 0 ? null : keys.value(slot - 1);
+        long count = counts[slot];
+        return count == 0
+                ? new Group(key, 0, 0, null, null)
+                : new Group(key, count, sums[slot], mins[slot], maxs[slot]);
+    }
+
+    //값이 모두 null 인 그룹은 min/max 가 null (sql 과 같게)
+    public record Group(String key, long count, long sum, Integer min, Integer max) {
+
+        public Double avg() {
+            return count == 0 ? null : (double) sum / count;
+        }
+    }
+}
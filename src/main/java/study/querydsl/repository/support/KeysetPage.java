@@ -0,0 +1,27 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 키셋 페이징 결과
+ * next가 null이면 마지막 페이지
+ */
+@Getter
+@ToString
+public class KeysetPage<T, C> {
+
+    private final List<T> content;
+    private final C next;
+
+    public KeysetPage(List<T> content, C next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
@@ -0,0 +1,119 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.*;
+import study.querydsl.dto.LazyString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * member.username.concat("_").concat(member.age.stringValue()) 같은 문자열 조합을 db 대신 클라이언트에서 한다
+ * select 절에는 원래 컬럼(username, age)만 나가고, 상수와 concat/stringValue 는 {@link LazyString} 이 읽힐 때 처리한다
+ *
+ * - 정수/문자열 컬럼의 stringValue() 만 풀어낸다 (db 의 cast 결과와 같은 문자열이 나오는 타입)
+ *   그 밖의 식은 그대로 db 에서 계산한 값을 이어 붙인다
+ * - sql 의 concat 과 같게 붙일 값 중 하나라도 null 이면 결과는 null
+ * - 같은 컬럼이 여러 번 나와도 한 번만 select 한다
+ */
+public final class LazyConcat extends FactoryExpressionBase<LazyString> {
+
+    private static final Set<Class<?>> FORMATTABLE = Set.of(String.class, Integer.class, Long.class, Short.class, Byte.class);
+
+    private final List<Expression<?>> args;
+    //조각마다 args 의 인덱스, 상수면 -1
+    private final int[] slots;
+    private final String[] constants;
+
+    private LazyConcat(List<Object> parts) {
+        super(LazyString.class);
+        List<Expression<?>> args = new ArrayList<>();
+        this.slots = new int[parts.size()];
+        this.constants = new String[parts.size()];
+        for (int i = 0; i < parts.size(); i++) {
+            Object part = parts.get(i);
+            if (part instanceof Expression<?> expr) {
+                int slot = args.indexOf(expr);
+                if (slot < 0) {
+                    slot = args.size();
+                    args.add(expr);
+                }
+                slots[i] = slot;
+            } else {
+                slots[i] = -1;
+                constants[i] = (String) part;
+            }
+        }
+        if (args.isEmpty()) {
+            throw new IllegalArgumentException("db 에서 가져올 컬럼이 없습니다: " + parts);
+        }
+        this.args = Collections.unmodifiableList(args);
+    }
+
+    //querydsl concat/stringValue 식을 풀어서
+    public static LazyConcat of(Expression<String> concat) {
+        List<Object> parts = new ArrayList<>();
+        flatten(concat, parts);
+        return new LazyConcat(parts);
+    }
+
+    //식과 상수(toString)를 순서대로
+    public static LazyConcat of(Object... parts) {
+        List<Object> flattened = new ArrayList<>(parts.length);
+        for (Object part : parts) {
+            if (part instanceof Expression<?> expr) {
+                flatten(expr, flattened);
+            } else {
+                flattened.add(String.valueOf(part));
+            }
+        }
+        return new LazyConcat(flattened);
+    }
+
+    private static void flatten(Expression<?> expr, List<Object> parts) {
+        if (expr instanceof Constant<?> constant) {
+            parts.add(String.valueOf(constant.getConstant()));
+        } else if (expr instanceof Operation<?> operation && operation.getOperator() == Ops.CONCAT) {
+            for (Expression<?> arg : operation.getArgs()) {
+                flatten(arg, parts);
+            }
+        } else if (expr instanceof Operation<?> operation && operation.getOperator() == Ops.STRING_CAST
+                && FORMATTABLE.contains(operation.getArg(0).getType())) {
+            flatten(operation.getArg(0), parts);
+        } else {
+            parts.add(expr);
+        }
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public LazyString newInstance(Object... row) {
+        Object[] parts = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] < 0) {
+                parts[i] = constants[i];
+            } else if ((parts[i] = row[slots[i]]) == null) {
+                return null;
+            }
+        }
+        return new LazyString(parts);
+    }
+
+    //args 가 같아도 붙이는 상수/순서가 다르면 다른 식 (Tuple 에서 키로 쓰인다)
+    @Override
+    public boolean equals(Object o) {
+        return o == this || o instanceof LazyConcat other && args.equals(other.args)
+                && Arrays.equals(slots, other.slots) && Arrays.equals(constants, other.constants);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+}
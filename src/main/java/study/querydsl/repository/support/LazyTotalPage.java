@@ -0,0 +1,54 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * 컨텐츠와 다음 페이지 여부는 바로 알 수 있고, 전체 건수는 getTotal()을 처음 호출할 때 계산하는 페이지
+ */
+public class LazyTotalPage<T> {
+
+    @Getter
+    private final List<T> content;
+    @Getter
+    private final Pageable pageable;
+    private final boolean hasNext;
+    private LongSupplier totalSupplier;
+    private Long total;
+
+    public LazyTotalPage(List<T> content, Pageable pageable, boolean hasNext, LongSupplier totalSupplier) {
+        this.content = content;
+        this.pageable = pageable;
+        this.hasNext = hasNext;
+        this.totalSupplier = totalSupplier;
+        //마지막 페이지라면 count 없이 전체 건수를 알 수 있다
+        if (!hasNext && (!content.isEmpty() || pageable.getOffset() == 0)) {
+            this.total = pageable.getOffset() + content.size();
+        }
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public boolean isTotalResolved() {
+        return total != null;
+    }
+
+    public long getTotal() {
+        if (total == null) {
+            total = totalSupplier.getAsLong();
+            totalSupplier = null;
+        }
+        return total;
+    }
+
+    public Page<T> toPage() {
+        return PageableExecutionUtils.getPage(content, pageable, this::getTotal);
+    }
+}
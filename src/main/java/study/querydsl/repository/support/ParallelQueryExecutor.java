@@ -0,0 +1,191 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/*
+ * 목록, 전체 개수, 팀 집계처럼 서로 독립적인 쿼리를 동시에 실행한다 (응답 시간 = 합이 아니라 가장 느린 쿼리)
+ *
+ * - 쿼리마다 작업 스레드에서 readOnly 트랜잭션을 따로 열기 때문에 EntityManager/커넥션도 따로 쓴다
+ *   (JPAQueryFactory 빈의 EntityManager 는 스레드의 트랜잭션에 바인딩된다)
+ * - 작업 스레드 수와 대기열 크기가 정해져 있어서 넘치면 RejectedExecutionException
+ * - timeout: 전체 대기 시간. 넘으면 남은 쿼리를 취소(interrupt)하고 QueryTimeoutException.
+ *   트랜잭션 timeout 도 같이 걸어서 jdbc 쿼리 타임아웃으로 db 쪽 실행도 끊는다
+ * - 하나가 실패하면 나머지를 취소하고 그 예외를 던진다
+ * - 쿼리끼리 같은 시점의 데이터를 봐야 하면 Mode.SNAPSHOT: 한 트랜잭션(REPEATABLE_READ)에서 순서대로 실행한다
+ */
+@Component
+public class ParallelQueryExecutor {
+
+    public enum Mode {
+        //쿼리마다 별도 트랜잭션으로 동시에 실행 (각자 시작 시점의 데이터)
+        PARALLEL,
+        //호출 스레드의 한 트랜잭션에서 순서대로 실행 (모두 같은 스냅샷)
+        SNAPSHOT
+    }
+
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final ThreadPoolExecutor executor;
+
+    public ParallelQueryExecutor(JPAQueryFactory queryFactory, PlatformTransactionManager transactionManager,
+                                 @Value("${fan-out.pool-size:8}") int poolSize,
+                                 @Value("${fan-out.queue-capacity:64}") int queueCapacity) {
+        this.queryFactory = queryFactory;
+        this.transactionManager = transactionManager;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "fan-out-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public FanOut fanOut(Duration timeout) {
+        return fanOut(timeout, Mode.PARALLEL);
+    }
+
+    public FanOut fanOut(Duration timeout, Mode mode) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("timeout은 0보다 커야 합니다: " + timeout);
+        }
+        return new FanOut(timeout, mode);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public final class FanOut implements AutoCloseable {
+
+        private final long deadline;
+        private final Mode mode;
+        private final TransactionTemplate tx;
+        private final List<Handle<?>> handles = new ArrayList<>();
+        //끝난 순서대로 들어온다. 먼저 실패한 쿼리를 바로 알아채기 위해 사용
+        private final BlockingQueue<Future<?>> completed = new LinkedBlockingQueue<>();
+
+        private FanOut(Duration timeout, Mode mode) {
+            this.deadline = System.nanoTime() + timeout.toNanos();
+            this.mode = mode;
+            this.tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            //트랜잭션 timeout 은 초 단위라 올림
+            tx.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+            if (mode == Mode.SNAPSHOT) {
+                tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            }
+        }
+
+        //PARALLEL 이면 바로 작업 스레드에서 실행을 시작한다. SNAPSHOT 이면 await() 에서 실행한다
+        public <T> Handle<T> submit(Function<JPAQueryFactory, T> query) {
+            Callable<T> task = mode == Mode.PARALLEL
+                    ? () -> tx.execute(status -> query.apply(queryFactory))
+                    : () -> query.apply(queryFactory);
+            FutureTask<T> future = new FutureTask<>(task) {
+                @Override
+                protected void done() {
+                    completed.add(this);
+                }
+            };
+            if (mode == Mode.PARALLEL) {
+                executor.execute(future);
+            }
+            Handle<T> handle = new Handle<>(future);
+            handles.add(handle);
+            return handle;
+        }
+
+        //모든 쿼리가 끝날 때까지 기다린다
+        public void await() {
+            if (mode == Mode.SNAPSHOT) {
+                runInSnapshot();
+            }
+            try {
+                for (int i = 0; i < handles.size(); i++) {
+                    Future<?> done = completed.poll(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        cancel();
+                        throw new QueryTimeoutException("fan-out 쿼리가 제한 시간 안에 끝나지 않았습니다");
+                    }
+                    done.get();
+                }
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new CancellationException("fan-out 대기 중 인터럽트");
+            } catch (ExecutionException e) {
+                cancel();
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        private void runInSnapshot() {
+            tx.executeWithoutResult(status -> {
+                for (Handle<?> handle : handles) {
+                    if (System.nanoTime() - deadline > 0) {
+                        return;
+                    }
+                    ((FutureTask<?>) handle.future).run();
+                }
+            });
+        }
+
+        //아직 끝나지 않은 쿼리를 취소한다
+        public void cancel() {
+            handles.forEach(handle -> handle.future.cancel(true));
+        }
+
+        @Override
+        public void close() {
+            cancel();
+        }
+    }
+
+    public static final class Handle<T> {
+
+        private final Future<T> future;
+
+        private Handle(Future<T> future) {
+            this.future = future;
+        }
+
+        //await() 이후에 호출한다
+        public T get() {
+            if (!future.isDone()) {
+                throw new IllegalStateException("await() 전에는 결과를 꺼낼 수 없습니다");
+            }
+            try {
+                return future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import study.querydsl.monitoring.QueryMetrics;
+
+import java.util.*;
+
+/**
+ * 한 번만 만들어서 계속 재사용하는 쿼리
+ *
+ * queryFactory.selectFrom(member).where(...) 를 호출할 때마다 querydsl은 식 트리와 메타데이터를 새로 만들고
+ * jpql 문자열로 다시 직렬화한다. 자주 호출되는 쿼리는 바뀌는 값만 {@link com.querydsl.core.types.dsl.Param}으로 빼서
+ * 식 트리와 jpql을 한 번만 만들고, 호출마다 파라미터만 바인딩한다
+ * jpql 문자열이 항상 같으므로 하이버네이트의 쿼리 플랜 캐시(hibernate.query.plan_cache_max_size)에서 파싱 결과를 재사용한다
+ *
+ * 불변 객체라서 빈 필드로 두고 여러 스레드에서 같이 써도 된다
+ * 원본 쿼리의 힌트, 락 모드는 가져오지 않으므로 필요하면 {@link Execution#hint}로 지정한다
+ */
+public final class PreparedQuery<T> {
+
+    private final EntityManager em;
+    private final String jpql;
+    private final Map<Object, String> constantToLabel;
+    private final Map<ParamExpression<?>, Object> fixedParams;
+    private final FactoryExpression<?> projection;
+    private final QueryModifiers modifiers;
+    //QueryMetrics 가 꺼져 있으면 null
+    private final QueryMetrics.Shape shape;
+
+    PreparedQuery(EntityManager em, JPAQuery<T> query, QueryMetrics metrics) {
+        QueryMetadata metadata = query.getMetadata().clone();
+        ProjectionFolding.fold(metadata);
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(metadata, false, null);
+
+        this.em = em;
+        this.jpql = serializer.toString();
+        this.constantToLabel = Collections.unmodifiableMap(new LinkedHashMap<>(serializer.getConstantToLabel()));
+        this.fixedParams = Collections.unmodifiableMap(new HashMap<>(metadata.getParams()));
+        Expression<?> select = metadata.getProjection();
+        this.projection = select instanceof FactoryExpression<?> factory ? factory : null;
+        this.modifiers = metadata.getModifiers();
+        //jpql 이 고정이므로 형태도 한 번만 찾아둔다
+        this.shape = metrics == null ? null : metrics.shape(jpql);
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    public <P> Execution<T> with(ParamExpression<P> param, P value) {
+        return new Execution<>(this).with(param, value);
+    }
+
+    public Execution<T> execution() {
+        return new Execution<>(this);
+    }
+
+    public List<T> fetch() {
+        return execution().fetch();
+    }
+
+    /**
+     * 호출 한 번에 대한 파라미터 바인딩. 재사용하지 않는다
+     */
+    public static final class Execution<T> {
+
+        private final PreparedQuery<T> prepared;
+        private final Map<ParamExpression<?>, Object> params;
+        private Map<String, Object> hints;
+        private Long offset;
+        private Long limit;
+
+        private Execution(PreparedQuery<T> prepared) {
+            this.prepared = prepared;
+            this.params = new HashMap<>(prepared.fixedParams);
+            this.offset = prepared.modifiers.getOffset();
+            this.limit = prepared.modifiers.getLimit();
+        }
+
+        public <P> Execution<T> with(ParamExpression<P> param, P value) {
+            params.put(param, value);
+            return this;
+        }
+
+        public Execution<T> offset(long offset) {
+            this.offset = offset;
+            return this;
+        }
+
+        public Execution<T> limit(long limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        public Execution<T> hint(String name, Object value) {
+            if (hints == null) {
+                hints = new LinkedHashMap<>();
+            }
+            hints.put(name, value);
+            return this;
+        }
+
+        public List<T> fetch() {
+            long start = System.nanoTime();
+            List<?> rows = createQuery().getResultList();
+            prepared.record(start, rows.size());
+            return prepared.transformAll(rows);
+        }
+
+        //두 건까지만 읽어서 유일한지 확인한다. limit 이 1 이면 그 안에서는 항상 유일하다
+        public T fetchOne() {
+            return fetchAtMost(limit == null ? 2 : Math.min(limit, 2), true);
+        }
+
+        public T fetchFirst() {
+            return fetchAtMost(1, false);
+        }
+
+        private T fetchAtMost(long maxResults, boolean unique) {
+            long start = System.nanoTime();
+            Query query = createQuery();
+            query.setMaxResults(Math.toIntExact(maxResults));
+            List<?> results = query.getResultList();
+            prepared.record(start, results.size());
+            if (unique && results.size() > 1) {
+                throw new NonUniqueResultException();
+            }
+            return results.isEmpty() ? null : prepared.transformRow(results.get(0));
+        }
+
+        private Query createQuery() {
+            Query query = prepared.em.createQuery(prepared.jpql);
+            JPAUtil.setConstants(query, prepared.constantToLabel, params);
+            if (offset != null) {
+                query.setFirstResult(Math.toIntExact(offset));
+            }
+            if (limit != null) {
+                query.setMaxResults(Math.toIntExact(limit));
+            }
+            if (hints != null) {
+                hints.forEach(query::setHint);
+            }
+            return query;
+        }
+    }
+
+    private void record(long start, int rows) {
+        if (shape != null) {
+            shape.record(System.nanoTime() - start, rows);
+        }
+    }
+
+    //projection이 dto/tuple이면 querydsl이 하던 것처럼 행 단위로 생성자를 호출한다
+    @SuppressWarnings("unchecked")
+    private T transformRow(Object row) {
+        if (projection == null) {
+            return (T) row;
+        }
+        return (T) (row instanceof Object[] values ? projection.newInstance(values) : projection.newInstance(row));
+    }
+
+    private List<T> transformAll(List<?> rows) {
+        List<T> results = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            results.add(transformRow(row));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.monitoring.QueryMetrics;
+
+/**
+ * {@link PreparedQuery} 생성. 애플리케이션 시작 시점(빈 생성자 등)에 한 번 만들어두고 재사용한다
+ */
+@Component
+@RequiredArgsConstructor
+public class PreparedQueryFactory {
+
+    private final EntityManager em;
+    private final ObjectProvider<QueryMetrics> queryMetrics;
+
+    public <T> PreparedQuery<T> prepare(JPAQuery<T> query) {
+        return new PreparedQuery<>(em, query, queryMetrics.getIfAvailable());
+    }
+}
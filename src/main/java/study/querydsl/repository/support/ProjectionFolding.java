@@ -0,0 +1,182 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.*;
+import com.querydsl.jpa.impl.JPAQuery;
+import study.querydsl.repository.support.ClientValueProjection.Derived;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * select 절(Tuple/dto projection)의 상수와 상수 연산을 jpql 에서 빼고 결과를 만들 때 채운다 (ClientValueProjection)
+ *
+ * - 상수만으로 된 식 (Expressions.constant("A"), 상수끼리의 +, -, *, concat): 한 번 계산해서 모든 행에 같은 값
+ *   select 절의 상수는 jpql 에 리터럴로 들어가므로 값마다 쿼리 플랜이 따로 생긴다
+ * - 컬럼 하나와 정수 상수의 +, -, *, 부호 반전 (member.age.add(1)): 컬럼만 가져와서 계산한다
+ *   Integer/Long 이고 피연산자 타입이 모두 같을 때만 (db 와 결과 타입이 같다). null 이면 null, 넘치면 db 처럼 에러
+ *   group by/distinct 가 있으면 컬럼으로 바꿀 때 결과가 달라질 수 있으므로 상수만 뺀다
+ *
+ * 원래 쿼리는 건드리지 않는다. 바꿀 것이 없으면 같은 jpql 의 복사본
+ */
+public final class ProjectionFolding {
+
+    private static final Set<Operator> ARITHMETIC = Set.of(Ops.ADD, Ops.SUB, Ops.MULT, Ops.NEGATE);
+
+    private ProjectionFolding() {
+    }
+
+    public static <T> JPAQuery<T> fold(JPAQuery<T> query) {
+        JPAQuery<T> folded = query.clone();
+        fold(folded.getMetadata());
+        return folded;
+    }
+
+    static void fold(QueryMetadata metadata) {
+        if (metadata.getProjection() instanceof FactoryExpression<?> projection) {
+            metadata.setProjection(fold(projection, metadata));
+        }
+    }
+
+    private static Expression<?> fold(FactoryExpression<?> projection, QueryMetadata metadata) {
+        boolean columnsFixed = metadata.isDistinct() || !metadata.getGroupBy().isEmpty();
+        List<Expression<?>> args = projection.getArgs();
+        Map<Integer, Object> clientValues = new HashMap<>();
+        Map<Integer, Derived> derived = new HashMap<>();
+        for (int i = 0; i < args.size(); i++) {
+            Expression<?> arg = args.get(i);
+            boolean aliasOrdered = false;
+            if (arg instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS) {
+                aliasOrdered = isOrderedBy(alias.getArg(1), metadata);
+                arg = alias.getArg(0);
+            }
+            Derived folded = fold(arg);
+            if (folded == null) {
+                continue;
+            }
+            if (folded.source() == null) {
+                try {
+                    clientValues.put(i, folded.compute().apply(null));
+                } catch (ArithmeticException e) {
+                    //넘치는 상수 연산은 db 에서 에러가 나도록 그대로 둔다
+                }
+            } else if (!columnsFixed && !aliasOrdered) {
+                derived.put(i, folded);
+            }
+        }
+        //select 할 컬럼이 하나는 남아야 한다
+        if (clientValues.size() == args.size()) {
+            return projection;
+        }
+        return ClientValueProjection.of(projection, clientValues, derived);
+    }
+
+    //order by 에서 select 절의 별칭을 쓰면 그 식은 그대로 둔다
+    private static boolean isOrderedBy(Expression<?> alias, QueryMetadata metadata) {
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            if (order.getTarget().equals(alias)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * 식을 source 하나(상수만 있으면 null)의 함수로 바꾼다. 바꿀 수 없으면 null
+     * 정수 연산 안에서 접을 수 없는 식(컬럼, 집계 등)은 그대로 가져올 source 가 된다
+     */
+    private static Derived fold(Expression<?> expr) {
+        if (expr instanceof Constant<?> constant) {
+            Object value = constant.getConstant();
+            return new Derived(null, ignored -> value);
+        }
+        if (!(expr instanceof Operation<?> operation)) {
+            return null;
+        }
+        if (operation.getOperator() == Ops.CONCAT && operation.getType() == String.class) {
+            return foldConcat(operation);
+        }
+        if (ARITHMETIC.contains(operation.getOperator())) {
+            return foldArithmetic(operation);
+        }
+        return null;
+    }
+
+    private static Derived foldConcat(Operation<?> operation) {
+        Derived left = fold(operation.getArg(0));
+        Derived right = fold(operation.getArg(1));
+        //컬럼이 섞인 concat 은 LazyConcat
+        if (left == null || right == null || left.source() != null || right.source() != null) {
+            return null;
+        }
+        return new Derived(null, ignored -> {
+            Object l = left.compute().apply(null);
+            Object r = right.compute().apply(null);
+            return l == null || r == null ? null : l.toString() + r;
+        });
+    }
+
+    private static Derived foldArithmetic(Operation<?> operation) {
+        Class<?> type = operation.getType();
+        if (type != Integer.class && type != Long.class) {
+            return null;
+        }
+        List<Expression<?>> args = operation.getArgs();
+        Derived[] operands = new Derived[args.size()];
+        Expression<?> source = null;
+        for (int i = 0; i < operands.length; i++) {
+            Expression<?> arg = args.get(i);
+            if (arg.getType() != type) {
+                return null;
+            }
+            Derived operand = fold(arg);
+            if (operand == null) {
+                operand = new Derived(arg, UnaryOperator.identity());
+            }
+            if (operand.source() != null) {
+                if (source != null && !source.equals(operand.source())) {
+                    return null;
+                }
+                source = operand.source();
+            }
+            operands[i] = operand;
+        }
+        Operator operator = operation.getOperator();
+        return new Derived(source, value -> {
+            Object[] values = new Object[operands.length];
+            for (int i = 0; i < values.length; i++) {
+                if ((values[i] = operands[i].compute().apply(value)) == null) {
+                    return null;
+                }
+            }
+            return type == Integer.class ? applyInt(operator, values) : applyLong(operator, values);
+        });
+    }
+
+    private static Integer applyInt(Operator operator, Object[] values) {
+        int a = (Integer) values[0];
+        if (operator == Ops.NEGATE) {
+            return Math.negateExact(a);
+        }
+        int b = (Integer) values[1];
+        if (operator == Ops.ADD) {
+            return Math.addExact(a, b);
+        }
+        return operator == Ops.SUB ? Math.subtractExact(a, b) : Math.multiplyExact(a, b);
+    }
+
+    private static Long applyLong(Operator operator, Object[] values) {
+        long a = (Long) values[0];
+        if (operator == Ops.NEGATE) {
+            return Math.negateExact(a);
+        }
+        long b = (Long) values[1];
+        if (operator == Ops.ADD) {
+            return Math.addExact(a, b);
+        }
+        return operator == Ops.SUB ? Math.subtractExact(a, b) : Math.multiplyExact(a, b);
+    }
+}
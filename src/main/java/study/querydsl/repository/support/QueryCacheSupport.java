@@ -0,0 +1,25 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.jpa.HibernateHints;
+
+/**
+ * querydsl 쿼리를 하이버네이트 쿼리 캐시에 태운다 (opt-in)
+ *
+ * 캐시 키는 하이버네이트가 만든 sql + 바인딩 파라미터이고,
+ * 쿼리가 읽은 테이블에 쓰기가 일어나면(update timestamps) 해당 결과는 자동으로 무효화된다
+ * 자주 바뀌는 테이블을 읽는 쿼리는 적중률이 낮으므로 Team처럼 거의 안 바뀌는 데이터에만 쓴다
+ */
+public final class QueryCacheSupport {
+
+    private QueryCacheSupport() {
+    }
+
+    public static <T> JPAQuery<T> cacheable(JPAQuery<T> query) {
+        return query.setHint(HibernateHints.HINT_CACHEABLE, true);
+    }
+
+    public static <T> JPAQuery<T> cacheable(JPAQuery<T> query, String region) {
+        return cacheable(query).setHint(HibernateHints.HINT_CACHE_REGION, region);
+    }
+}
@@ -0,0 +1,154 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.Ops;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * fetchResults()는 querydsl 5에서 deprecated 되었고 항상 count 쿼리를 날린다
+ * 여기서는 컨텐츠 쿼리로부터 count 쿼리를 만들어 두고 정말 필요할 때만 실행한다
+ *
+ * 1. 첫 페이지인데 컨텐츠가 페이지 크기보다 작거나, 마지막 페이지면 count 쿼리를 생략 (PageableExecutionUtils)
+ * 2. count 쿼리에서는 order by를 빼고 fetch join은 일반 join으로 바꾼다
+ *    where/on 절에서 쓰지 않는 left fetch join은 건수에 영향이 없으므로 아예 제거한다
+ * 3. 컬렉션 fetch join 이 있으면 컨텐츠의 루트 중복이 제거되므로 count(distinct 루트), 아니면 행 수를 센다
+ */
+@Component
+@RequiredArgsConstructor
+public class QuerydslPagingSupport {
+
+    //count 쿼리도 컨텐츠 쿼리와 같은 팩토리(템플릿, 쿼리 지표 기록)로 만든다
+    private final JPAQueryFactory queryFactory;
+
+    public <T> Page<T> page(JPAQuery<T> contentQuery, Pageable pageable) {
+        return page(contentQuery, countQuery(contentQuery), pageable);
+    }
+
+    //group by 등 자동으로 만들 수 없는 경우에는 count 쿼리를 직접 넘긴다
+    public <T> Page<T> page(JPAQuery<T> contentQuery, JPAQuery<Long> countQuery, Pageable pageable) {
+        List<T> content = contentQuery
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
+    //total은 처음 요청될 때 계산된다. 목록 화면처럼 "다음 페이지 여부"만 필요하면 count 쿼리가 나가지 않는다
+    public <T> LazyTotalPage<T> lazyPage(JPAQuery<T> contentQuery, Pageable pageable) {
+        return lazyPage(contentQuery, countQuery(contentQuery), pageable);
+    }
+
+    public <T> LazyTotalPage<T> lazyPage(JPAQuery<T> contentQuery, JPAQuery<Long> countQuery, Pageable pageable) {
+        //다음 페이지가 있는지 알기 위해 한 건 더 조회한다
+        List<T> rows = contentQuery
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1L)
+                .fetch();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, pageable.getPageSize())) : rows;
+        return new LazyTotalPage<>(content, pageable, hasNext, countQuery::fetchOne);
+    }
+
+    public JPAQuery<Long> countQuery(JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        if (!source.getGroupBy().isEmpty() || source.getHaving() != null) {
+            throw new IllegalArgumentException("group by 쿼리의 count 쿼리는 직접 작성해야 합니다");
+        }
+
+        Set<Path<?>> referenced = ExpressionRoots.of(source.getWhere());
+        for (JoinExpression join : source.getJoins()) {
+            referenced.addAll(ExpressionRoots.of(join.getCondition()));
+        }
+
+        //뒤의 join 부터 보면서 남기는 join 의 대상 path 가 참조하는 별칭도 남긴다
+        //(leftJoin(team.members, m2) 를 남기면 team 도 남아야 한다)
+        List<JoinExpression> joins = source.getJoins();
+        boolean[] removed = new boolean[joins.size()];
+        for (int i = joins.size() - 1; i > 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (isRemovable(join, referenced)) {
+                removed[i] = true;
+            } else {
+                referenced.addAll(ExpressionRoots.of(pathOf(join)));
+            }
+        }
+
+        //querydsl 은 metadata 에서 join 을 뺄 수 없으므로 clone() 대신 빈 쿼리에 남길 join 만 다시 담는다
+        JPAQuery<?> countQuery = queryFactory.query();
+        QueryMetadata metadata = countQuery.getMetadata();
+        for (int i = 0; i < joins.size(); i++) {
+            JoinExpression join = joins.get(i);
+            if (removed[i]) {
+                continue;
+            }
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!isFetch(flag)) {
+                    metadata.addJoinFlag(flag);
+                }
+            }
+        }
+        metadata.addWhere(source.getWhere());
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            setParam(metadata, param.getKey(), param.getValue());
+        }
+
+        //하이버네이트는 컬렉션을 fetch join 한 컨텐츠에서만 루트 중복을 제거한다 (count 에서 그 join 을 뺐더라도)
+        //to-one fetch join 이나 일반 join 은 행 그대로 센다
+        Path<?> root = ExpressionRoots.aliasOf(joins.get(0));
+        boolean distinct = source.isDistinct() || joins.stream().anyMatch(this::isCollectionFetch);
+        Expression<Long> count = Expressions.numberOperation(Long.class,
+                distinct ? Ops.AggOps.COUNT_DISTINCT_AGG : Ops.AggOps.COUNT_AGG, root);
+        return countQuery.select(count);
+    }
+
+    //건수를 바꾸지 않는 join: 조건에서 참조하지 않는 left fetch join
+    private boolean isRemovable(JoinExpression join, Set<Path<?>> referenced) {
+        return join.getType() == JoinType.LEFTJOIN
+                && join.getFlags().stream().anyMatch(this::isFetch)
+                && !referenced.contains(ExpressionRoots.aliasOf(join));
+    }
+
+    //join(member.team, team) 이면 member.team
+    private Expression<?> pathOf(JoinExpression join) {
+        Expression<?> target = join.getTarget();
+        return target instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS ? operation.getArg(0) : target;
+    }
+
+    private boolean isCollectionFetch(JoinExpression join) {
+        return pathOf(join) instanceof CollectionExpression<?, ?> && join.getFlags().stream().anyMatch(this::isFetch);
+    }
+
+    private boolean isFetch(JoinFlag flag) {
+        return flag.equals(JPAQueryMixin.FETCH) || flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+}
@@ -0,0 +1,112 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * fetch()는 결과 전체를 List로 만들고, 조회한 엔티티도 트랜잭션이 끝날 때까지 영속성 컨텍스트에 남는다
+ * 수백만 건을 내보내는 경우에는 커서(ScrollableResults) 기반 Stream으로 fetchSize 만큼씩 가져오고
+ * 다음 행으로 넘어갈 때 이전 행의 엔티티를 detach 해서 메모리를 일정하게 유지한다
+ * 행을 처리하면서 지연 로딩한 연관 엔티티(m.getTeam() 등)는 행에 없으므로 fetchSize 행마다, 그리고 끝날 때 clear 한다
+ *
+ * - 반드시 트랜잭션 안에서 사용하고 try-with-resources로 닫아야 커서/커넥션이 정리된다
+ * - readOnly 힌트로 변경 감지용 스냅샷도 만들지 않는다
+ * - 이미 넘어간 엔티티는 준영속 상태이므로 지연 로딩이 필요하면 fetch join으로 가져와야 한다
+ * - clear 는 호출한 트랜잭션의 영속성 컨텍스트 전체를 비우므로, 스트림 전에 영속 상태였던 엔티티도 준영속이 된다
+ */
+@Component
+@RequiredArgsConstructor
+public class QuerydslStreamSupport {
+
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private final EntityManager em;
+
+    public <T> Stream<T> stream(JPAQuery<T> query) {
+        return stream(query, DEFAULT_FETCH_SIZE);
+    }
+
+    public <T> Stream<T> stream(JPAQuery<T> query, int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize는 1 이상이어야 합니다: " + fetchSize);
+        }
+        Stream<T> results = query
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream();
+
+        Iterator<T> detaching = new DetachingIterator<>(results.iterator(), fetchSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(detaching, Spliterator.ORDERED), false)
+                .onClose(results::close);
+    }
+
+    //next()가 호출되는 시점에는 이전 행의 처리가 끝났으므로 그 행을 영속성 컨텍스트에서 뗀다
+    private class DetachingIterator<T> implements Iterator<T> {
+
+        private final Iterator<T> delegate;
+        private final int fetchSize;
+        private T previous;
+        private long read;
+
+        DetachingIterator(Iterator<T> delegate, int fetchSize) {
+            this.delegate = delegate;
+            this.fetchSize = fetchSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = delegate.hasNext();
+            if (!hasNext && read > 0) {
+                previous = null;
+                read = 0;
+                em.clear();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            detachPrevious();
+            if (read > 0 && read % fetchSize == 0) {
+                em.clear();
+            }
+            previous = delegate.next();
+            read++;
+            return previous;
+        }
+
+        private void detachPrevious() {
+            if (previous != null) {
+                detach(previous);
+                previous = null;
+            }
+        }
+    }
+
+    private void detach(Object row) {
+        if (row instanceof Tuple tuple) {
+            for (Object value : tuple.toArray()) {
+                detach(value);
+            }
+        } else if (row != null && entityClass(row).isAnnotationPresent(Entity.class) && em.contains(row)) {
+            em.detach(row);
+        }
+    }
+
+    //프록시는 초기화하지 않고 실제 엔티티 클래스를 본다
+    private Class<?> entityClass(Object row) {
+        return row instanceof HibernateProxy proxy ? proxy.getHibernateLazyInitializer().getPersistentClass() : row.getClass();
+    }
+}
@@ -0,0 +1,232 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/*
+ * querydsl 쿼리(QMember, QTeam 식 그대로)를 Flux/Mono 로 실행한다
+ * jdbc 는 블로킹이므로 정해진 수의 작업 스레드(querydsl-jdbc)에서만 실행하고, 호출 스레드(이벤트 루프)는 막지 않는다
+ *
+ * - flux: 커서(forward only)로 pageSize 만큼씩 가져온다. 구독자가 요청한 만큼만 읽으므로 느린 구독자가 있어도
+ *   메모리에 쌓이는 행은 pageSize 정도로 유지된다 (영속성 컨텍스트도 pageSize 행마다 비운다)
+ * - 취소/에러/완료 시 커서, 트랜잭션, EntityManager 를 닫는다
+ * - 구독마다 EntityManager 와 readOnly 트랜잭션을 따로 연다. 커서가 여러 번의 요청에 걸쳐 열려 있어야 하고
+ *   취소는 다른 스레드에서 올 수 있으므로 스레드에 바인딩되는 스프링 트랜잭션 대신 직접 관리한다
+ * - 작업 스레드 수만큼만 동시에 실행하고, 대기 구독이 queued-subscriptions 를 넘으면 RejectedExecutionException 으로 끝난다
+ * - 열린 커서는 작업 스레드를 잡고 있지 않으므로 (요청을 기다리는 동안 스레드는 다른 구독을 처리한다) threads 로는
+ *   커넥션 수가 제한되지 않는다. 커서와 mono 는 max-connections 개의 허가를 얻어야 커넥션을 열고, 닫을 때 돌려준다
+ *   허가가 없으면 기다리지 않고 바로 RejectedExecutionException 으로 끝난다. 작업 스레드에서 기다리면 같은 스레드에 묶인
+ *   (허가를 쥐고 있는) 커서의 요청 처리까지 멈추기 때문이다. max-connections 는 커넥션 풀 크기보다 작게 둔다
+ * - 구독자가 idle-timeout 동안 요청하지 않거나 다음 행이 나오지 않으면 TimeoutException 으로 끝내고 커서를 닫는다
+ * - 결과 엔티티는 준영속 상태로 나가므로 지연 로딩이 필요하면 fetch join 으로 가져온다
+ */
+@Component
+public class ReactiveQueryFactory {
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+
+    private final EntityManagerFactory emf;
+    private final Scheduler scheduler;
+    private final Connections connections;
+    private final Duration idleTimeout;
+
+    public ReactiveQueryFactory(EntityManagerFactory emf,
+                                @Value("${reactive-query.threads:4}") int threads,
+                                @Value("${reactive-query.queued-subscriptions:1000}") int queuedSubscriptions,
+                                @Value("${reactive-query.max-connections:4}") int maxConnections,
+                                @Value("${reactive-query.idle-timeout:30s}") Duration idleTimeout) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("max-connections는 1 이상이어야 합니다: " + maxConnections);
+        }
+        this.emf = emf;
+        this.scheduler = Schedulers.newBoundedElastic(threads, queuedSubscriptions, "querydsl-jdbc");
+        this.connections = new Connections(maxConnections);
+        this.idleTimeout = idleTimeout;
+    }
+
+    public <T> Flux<T> flux(JPAQuery<T> query) {
+        return flux(query, DEFAULT_PAGE_SIZE);
+    }
+
+    //query 는 식과 조건만 가져다 쓴다 (어떤 EntityManager 로 만든 쿼리든 상관없다)
+    public <T> Flux<T> flux(JPAQuery<T> query, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize는 1 이상이어야 합니다: " + pageSize);
+        }
+        QueryMetadata metadata = query.getMetadata().clone();
+        //generate 는 요청이 있을 때만 한 행씩 만든다. 취소가 generate 도중에 오면 generate 가 끝난 뒤에 닫는다
+        return Flux.<T, Cursor<T>>generate(
+                        () -> Cursor.open(emf, connections, metadata, pageSize),
+                        (cursor, sink) -> {
+                            if (cursor.hasNext()) {
+                                sink.next(cursor.next());
+                            } else {
+                                sink.complete();
+                            }
+                            return cursor;
+                        },
+                        Cursor::close)
+                //구독과 요청 모두 작업 스레드 하나에서 처리된다 (커서를 한 스레드에서만 읽는다)
+                .subscribeOn(scheduler)
+                //구독자가 한꺼번에 많이(Long.MAX_VALUE) 요청해도 pageSize 씩 나눠서 읽는다
+                .limitRate(pageSize)
+                //요청을 멈춘 구독자가 커서(커넥션)를 계속 잡고 있지 않도록 한다. 취소되면 generate 가 커서를 닫는다
+                .timeout(idleTimeout);
+    }
+
+    public <T> Mono<T> mono(JPAQuery<T> query) {
+        QueryMetadata metadata = query.getMetadata().clone();
+        return Mono.fromCallable(() -> {
+                    connections.acquire();
+                    EntityManager em = null;
+                    try {
+                        em = emf.createEntityManager();
+                        return new JPAQuery<T>(em, metadata)
+                                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                                .fetchOne();
+                    } finally {
+                        try {
+                            if (em != null) {
+                                em.close();
+                            }
+                        } finally {
+                            connections.release();
+                        }
+                    }
+                })
+                .subscribeOn(scheduler);
+    }
+
+    public int availableConnections() {
+        return connections.permits.availablePermits();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.dispose();
+    }
+
+    //구독이 동시에 여는 커넥션 수 제한
+    private static final class Connections {
+
+        private final Semaphore permits;
+        private final int maxConnections;
+
+        Connections(int maxConnections) {
+            this.permits = new Semaphore(maxConnections);
+            this.maxConnections = maxConnections;
+        }
+
+        //작업 스레드를 막지 않도록 기다리지 않는다
+        void acquire() {
+            if (!permits.tryAcquire()) {
+                throw new RejectedExecutionException("reactive-query 커넥션이 모두 사용 중입니다: " + maxConnections);
+            }
+        }
+
+        void release() {
+            permits.release();
+        }
+    }
+
+    private static final class Cursor<T> {
+
+        private final EntityManager em;
+        private final Connections connections;
+        private final Stream<T> stream;
+        private final Iterator<T> rows;
+        private final int pageSize;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private int read;
+
+        private Cursor(EntityManager em, Connections connections, Stream<T> stream, int pageSize) {
+            this.em = em;
+            this.connections = connections;
+            this.stream = stream;
+            this.rows = stream.iterator();
+            this.pageSize = pageSize;
+        }
+
+        static <T> Cursor<T> open(EntityManagerFactory emf, Connections connections, QueryMetadata metadata, int pageSize) {
+            connections.acquire();
+            EntityManager em = null;
+            try {
+                em = emf.createEntityManager();
+                em.getTransaction().begin();
+                Stream<T> stream = new JPAQuery<T>(em, metadata)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, pageSize)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true)
+                        .stream();
+                return new Cursor<>(em, connections, stream, pageSize);
+            } catch (RuntimeException e) {
+                try {
+                    if (em != null) {
+                        release(em);
+                    }
+                } finally {
+                    connections.release();
+                }
+                throw e;
+            }
+        }
+
+        boolean hasNext() {
+            return rows.hasNext();
+        }
+
+        //내보낸 행은 다시 보지 않으므로 pageSize 행마다 영속성 컨텍스트를 비운다
+        T next() {
+            T row = rows.next();
+            if (++read % pageSize == 0) {
+                em.clear();
+            }
+            return row;
+        }
+
+        //취소와 완료가 겹쳐도 허가는 한 번만 돌려준다
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                stream.close();
+            } finally {
+                try {
+                    release(em);
+                } finally {
+                    connections.release();
+                }
+            }
+        }
+
+        //읽기만 했으므로 롤백
+        private static void release(EntityManager em) {
+            try {
+                EntityTransaction tx = em.getTransaction();
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+            } finally {
+                em.close();
+            }
+        }
+    }
+}
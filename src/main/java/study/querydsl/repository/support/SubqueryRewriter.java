@@ -0,0 +1,291 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.types.*;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/*
+ * JPAExpressions 서브쿼리를 실행 전에 더 싼 형태로 바꾼다 (선택적으로 거치는 단계, 원래 쿼리는 건드리지 않는다)
+ *
+ * 1. 바깥 쿼리를 참조하지 않는 스칼라 서브쿼리: 한 번 실행해서 값으로 바꾼다
+ *    - where 의 비교(=, <>, <, >, <=, >=): 정수 컬럼과 avg 같은 실수를 비교하면 같은 뜻의 정수 경계로 바꾼다
+ *      (age >= 25.5 -> age >= 26) 컬럼 쪽을 cast 하지 않으므로 인덱스를 그대로 탄다
+ *    - select 절: 값을 db 로 보내지 않고 결과를 만들 때 채운다 (ClientValueProjection)
+ * 2. 바깥 쿼리를 참조하지 않는 IN 서브쿼리: 한 번 실행해서 값 목록으로 바꾼다 (max-inline-values 개 이하일 때)
+ * 3. 그 밖의 IN 서브쿼리(상관 서브쿼리, 값이 너무 많은 경우): where 의 최상위 and 조건이면 세미 조인으로 바꾼다
+ *    x in (select s.p from S s where c) -> inner join S s on s.p = x and c + select distinct
+ *    distinct 로 결과가 달라지지 않도록 루트 엔티티만 조회하고, 컬렉션/엔티티 join 이 없고,
+ *    order by 가 루트만 참조하는 쿼리에만 적용한다
+ *
+ * jpql 은 from 절 서브쿼리가 없으므로 집계 상관 서브쿼리(팀별 max 등)는 그대로 둔다
+ */
+@Component
+public class SubqueryRewriter {
+
+    private static final Set<Operator> COMPARISONS = Set.of(Ops.EQ, Ops.NE, Ops.LT, Ops.GT, Ops.LOE, Ops.GOE);
+    private static final Map<Operator, Operator> FLIPPED = Map.of(
+            Ops.EQ, Ops.EQ, Ops.NE, Ops.NE, Ops.LT, Ops.GT, Ops.GT, Ops.LT, Ops.LOE, Ops.GOE, Ops.GOE, Ops.LOE);
+    private static final Set<Class<?>> INTEGRAL = Set.of(Integer.class, Long.class, Short.class, Byte.class);
+
+    private final EntityManager em;
+    private final int maxInlineValues;
+
+    public SubqueryRewriter(EntityManager em, @Value("${subquery-rewrite.max-inline-values:1000}") int maxInlineValues) {
+        this.em = em;
+        this.maxInlineValues = maxInlineValues;
+    }
+
+    //바꿀 것이 없으면 원래 쿼리와 같은 jpql 의 복사본
+    public <T> JPAQuery<T> rewrite(JPAQuery<T> query) {
+        JPAQuery<T> rewritten = query.clone();
+        QueryMetadata metadata = rewritten.getMetadata();
+
+        Predicate where = metadata.getWhere();
+        if (where != null) {
+            List<Predicate> conjuncts = new ArrayList<>();
+            flattenAnd(where, conjuncts);
+            metadata.clearWhere();
+            List<Predicate> kept = new ArrayList<>();
+            for (Predicate conjunct : conjuncts) {
+                Predicate hoisted = (Predicate) hoist(conjunct, metadata, true);
+                if (!semiJoin(hoisted, metadata)) {
+                    kept.add(hoisted);
+                }
+            }
+            kept.forEach(metadata::addWhere);
+        }
+        if (metadata.getProjection() instanceof FactoryExpression<?> projection) {
+            metadata.setProjection(hoistProjection(projection, metadata));
+        }
+        return rewritten;
+    }
+
+    private void flattenAnd(Predicate predicate, List<Predicate> conjuncts) {
+        if (predicate instanceof BooleanBuilder builder) {
+            if (builder.getValue() != null) {
+                flattenAnd(builder.getValue(), conjuncts);
+            }
+        } else if (predicate instanceof Operation<?> operation && operation.getOperator() == Ops.AND) {
+            for (Expression<?> arg : operation.getArgs()) {
+                flattenAnd((Predicate) arg, conjuncts);
+            }
+        } else {
+            conjuncts.add(predicate);
+        }
+    }
+
+    /*
+     * positive: where 의 최상위부터 and/or 만 거쳐 온 조건. 여기서는 null(unknown) 과 false 가 같은 결과라서
+     * in 목록의 null 을 빼도 된다. not 같은 다른 식 안에서는 unknown 이 false 와 다르게 바뀐다
+     * (not (x in (1, null)) 은 unknown, not (x in (1)) 은 x = 2 일 때 true)
+     */
+    private Expression<?> hoist(Expression<?> expr, QueryMetadata outer, boolean positive) {
+        if (expr instanceof BooleanBuilder builder) {
+            return builder.getValue() == null ? expr : hoist(builder.getValue(), outer, positive);
+        }
+        if (!(expr instanceof Operation<?> operation)) {
+            return expr;
+        }
+        List<Expression<?>> args = operation.getArgs();
+        if (COMPARISONS.contains(operation.getOperator()) && args.size() == 2) {
+            Expression<?> replaced = hoistComparison(operation.getOperator(), args.get(0), args.get(1), outer);
+            if (replaced != null) {
+                return replaced;
+            }
+        }
+        if (operation.getOperator() == Ops.IN && args.get(1) instanceof SubQueryExpression<?> sub) {
+            Expression<?> replaced = inlineIn(args.get(0), sub, outer, positive);
+            if (replaced != null) {
+                return replaced;
+            }
+        }
+        boolean argsPositive = positive && (operation.getOperator() == Ops.AND || operation.getOperator() == Ops.OR);
+        List<Expression<?>> hoistedArgs = new ArrayList<>(args.size());
+        boolean changed = false;
+        for (Expression<?> arg : args) {
+            Expression<?> hoisted = hoist(arg, outer, argsPositive);
+            changed |= hoisted != arg;
+            hoistedArgs.add(hoisted);
+        }
+        return changed ? ExpressionUtils.operation(operation.getType(), operation.getOperator(), hoistedArgs) : expr;
+    }
+
+    private Predicate hoistComparison(Operator operator, Expression<?> left, Expression<?> right, QueryMetadata outer) {
+        if (right instanceof SubQueryExpression<?> sub && !(left instanceof SubQueryExpression<?>)) {
+            return compare(operator, left, sub, outer);
+        }
+        if (left instanceof SubQueryExpression<?> sub && !(right instanceof SubQueryExpression<?>)) {
+            return compare(FLIPPED.get(operator), right, sub, outer);
+        }
+        return null;
+    }
+
+    //column (op) (서브쿼리 값). 값으로 바꿀 수 없으면 null
+    private Predicate compare(Operator operator, Expression<?> column, SubQueryExpression<?> sub, QueryMetadata outer) {
+        if (!isUncorrelated(sub)) {
+            return null;
+        }
+        Object value = execute(sub, outer).fetchOne();
+        if (value == null) {
+            return null;
+        }
+        Class<?> type = column.getType();
+        if (type.isInstance(value)) {
+            return ExpressionUtils.predicate(operator, column, Expressions.constant(value));
+        }
+        if (!INTEGRAL.contains(type) || !(value instanceof Number number)) {
+            return null;
+        }
+        Object bound = integralBound(operator, number, type);
+        return bound == null ? null : ExpressionUtils.predicate(operator, column, Expressions.constant(bound));
+    }
+
+    //정수 컬럼 c 와 실수 v 의 비교를 정수 경계로: c >= v -> c >= ceil(v), c > v -> c > floor(v) ...
+    private Object integralBound(Operator operator, Number value, Class<?> type) {
+        if (value instanceof Double d && (d.isNaN() || d.isInfinite())
+                || value instanceof Float f && (f.isNaN() || f.isInfinite())) {
+            return null;
+        }
+        BigDecimal decimal = new BigDecimal(value.toString());
+        BigDecimal bound;
+        if (operator == Ops.GOE || operator == Ops.LT) {
+            bound = decimal.setScale(0, RoundingMode.CEILING);
+        } else if (operator == Ops.GT || operator == Ops.LOE) {
+            bound = decimal.setScale(0, RoundingMode.FLOOR);
+        } else if (decimal.stripTrailingZeros().scale() <= 0) {
+            bound = decimal;
+        } else {
+            //정수 컬럼과 같을 수 없는 값. 드문 경우라 그대로 둔다
+            return null;
+        }
+        try {
+            if (type == Integer.class) {
+                return bound.intValueExact();
+            } else if (type == Long.class) {
+                return bound.longValueExact();
+            } else if (type == Short.class) {
+                return bound.shortValueExact();
+            }
+            return bound.byteValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private Predicate inlineIn(Expression<?> left, SubQueryExpression<?> sub, QueryMetadata outer, boolean positive) {
+        if (!(left instanceof Path<?>) || !isUncorrelated(sub)) {
+            return null;
+        }
+        //한 건 더 읽어서 max-inline-values 를 넘는지만 본다
+        List<?> values = execute(sub, outer).limit(maxInlineValues + 1L).fetch();
+        if (values.size() > maxInlineValues) {
+            return null;
+        }
+        //in 목록의 null 은 어떤 값과도 같지 않으므로 positive 위치에서는 빼도 결과가 같다. 빈 목록은 jpql 에서 1 = 2 로 나간다
+        Set<Object> distinct = new LinkedHashSet<>(values);
+        if (distinct.remove(null) && !positive) {
+            return null;
+        }
+        return ExpressionUtils.predicate(Ops.IN, left, Expressions.constant(distinct));
+    }
+
+    //x in (서브쿼리) 를 세미 조인으로 바꿨으면 true (조건은 join 의 on 절로 옮겨간다)
+    private boolean semiJoin(Predicate conjunct, QueryMetadata outer) {
+        if (!(conjunct instanceof Operation<?> operation) || operation.getOperator() != Ops.IN
+                || !(operation.getArg(1) instanceof SubQueryExpression<?> sub)) {
+            return false;
+        }
+        QueryMetadata inner = sub.getMetadata();
+        if (!canSemiJoin(outer) || !canBeJoined(inner, outer)) {
+            return false;
+        }
+        Path<?> subRoot = (Path<?>) inner.getJoins().get(0).getTarget();
+        outer.addJoin(com.querydsl.core.JoinType.INNERJOIN, (EntityPath<?>) subRoot);
+        outer.addJoinCondition(ExpressionUtils.allOf(
+                ExpressionUtils.predicate(Ops.EQ, inner.getProjection(), operation.getArg(0)),
+                inner.getWhere()));
+        inner.getParams().forEach((param, value) -> setParam(outer, param, value));
+        outer.setDistinct(true);
+        return true;
+    }
+
+    private boolean canSemiJoin(QueryMetadata outer) {
+        List<JoinExpression> joins = outer.getJoins();
+        Path<?> root = ExpressionRoots.aliasOf(joins.get(0));
+        if (!root.equals(outer.getProjection()) || !outer.getGroupBy().isEmpty() || outer.getHaving() != null) {
+            return false;
+        }
+        //to-one 연관관계 join 만 허용 (건수가 늘어나는 join 이 있으면 distinct 가 결과를 바꾼다)
+        for (JoinExpression join : joins.subList(1, joins.size())) {
+            if (!(join.getTarget() instanceof Operation<?> alias) || alias.getOperator() != Ops.ALIAS
+                    || alias.getArg(0) instanceof CollectionExpression<?, ?>) {
+                return false;
+            }
+        }
+        for (OrderSpecifier<?> order : outer.getOrderBy()) {
+            if (!Set.of(root).containsAll(ExpressionRoots.of(order.getTarget()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean canBeJoined(QueryMetadata inner, QueryMetadata outer) {
+        QueryModifiers modifiers = inner.getModifiers();
+        if (inner.getJoins().size() != 1 || !(inner.getJoins().get(0).getTarget() instanceof EntityPath<?> subRoot)
+                || !(inner.getProjection() instanceof Path<?>)
+                || !inner.getGroupBy().isEmpty() || inner.getHaving() != null
+                || modifiers.getLimit() != null || modifiers.getOffset() != null) {
+            return false;
+        }
+        for (JoinExpression join : outer.getJoins()) {
+            if (ExpressionRoots.aliasOf(join).getMetadata().getName().equals(subRoot.getMetadata().getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Expression<?> hoistProjection(FactoryExpression<?> projection, QueryMetadata outer) {
+        List<Expression<?>> args = projection.getArgs();
+        Map<Integer, Object> clientValues = new HashMap<>();
+        for (int i = 0; i < args.size(); i++) {
+            Expression<?> arg = args.get(i);
+            if (arg instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS) {
+                arg = alias.getArg(0);
+            }
+            //select 할 컬럼이 하나는 남아야 한다
+            if (arg instanceof SubQueryExpression<?> sub && isUncorrelated(sub) && clientValues.size() < args.size() - 1) {
+                clientValues.put(i, execute(sub, outer).fetchOne());
+            }
+        }
+        return ClientValueProjection.of(projection, clientValues);
+    }
+
+    private boolean isUncorrelated(SubQueryExpression<?> sub) {
+        return ExpressionRoots.of(sub).isEmpty();
+    }
+
+    //바깥 쿼리에 바인딩한 파라미터를 서브쿼리에서 쓸 수 있으므로 같이 넘긴다
+    private JPAQuery<Object> execute(SubQueryExpression<?> sub, QueryMetadata outer) {
+        QueryMetadata metadata = sub.getMetadata().clone();
+        outer.getParams().forEach((param, value) -> setParam(metadata, param, value));
+        return new JPAQuery<>(em, metadata);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+}
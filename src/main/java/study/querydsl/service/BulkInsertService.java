@@ -0,0 +1,79 @@
+package study.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/*
+ * em.persist를 한 건씩 하면서 영속성 컨텍스트에 계속 쌓아두면
+ * 1) id마다 시퀀스 호출 2) insert마다 왕복 3) 1차 캐시가 계속 커지는 문제가 있다
+ *
+ * - id: pooled-lo 옵티마이저로 allocationSize 만큼 미리 할당 (Member, Team 매핑 참고)
+ * - insert: hibernate.jdbc.batch_size + order_inserts 로 jdbc 배치 전송
+ * - 메모리: chunkSize 마다 flush/clear 해서 영속성 컨텍스트 크기를 일정하게 유지
+ *
+ * 주의: 호출한 쪽의 트랜잭션에 참여하므로 clear 는 호출한 쪽의 영속성 컨텍스트를 비운다
+ * 호출 전에 영속 상태였던 엔티티(넘겨준 엔티티 포함)도 모두 준영속이 되므로, 호출 뒤에 변경 감지나 지연 로딩이 필요하면
+ * em.find/merge 로 다시 가져오거나 별도 트랜잭션(REQUIRES_NEW 등)에서 호출한다
+ */
+@Service
+public class BulkInsertService {
+
+    private final EntityManager em;
+    private final int chunkSize;
+
+    public BulkInsertService(EntityManager em, @Value("${bulk-insert.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.chunkSize = chunkSize;
+    }
+
+    @Transactional
+    public <T> long persistAll(Stream<T> entities) {
+        return persistAll(entities, chunkSize);
+    }
+
+    //끝나면 영속성 컨텍스트가 비어 있다 (클래스 주석 참고)
+    @Transactional
+    public <T> long persistAll(Stream<T> entities, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다: " + chunkSize);
+        }
+        long count = 0;
+        Iterator<T> iterator = entities.iterator();
+        while (iterator.hasNext()) {
+            em.persist(iterator.next());
+            if (++count % chunkSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    /*
+     * new Member(username, age, team)은 team.getMembers()에 회원을 추가하기 때문에
+     * 같은 Team 객체로 백만 건을 넣으면 clear 해도 그 컬렉션이 계속 커진다
+     * 그래서 팀은 getReference로 id만 가진 프록시를 걸어준다 (select 안 나감)
+     */
+    @Transactional
+    public long insertMembers(Stream<MemberRow> rows) {
+        return persistAll(rows.map(this::toMember), chunkSize);
+    }
+
+    private Member toMember(MemberRow row) {
+        Member member = new Member(row.getUsername(), row.getAge());
+        if (row.getTeamId() != null) {
+            member.setTeam(em.getReference(Team.class, row.getTeamId()));
+        }
+        return member;
+    }
+}
@@ -0,0 +1,185 @@
+package study.querydsl.service;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.AgeRanks;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+
+/*
+ * 엔티티를 읽어서 변경 감지로 바꾸면 행마다 update가 한 번씩 나간다
+ * 여기서는 update/delete 쿼리 한 번으로 chunkSize 만큼씩 바꾼다
+ *
+ * - chunk: 대상 id를 id 순으로 chunkSize개씩 잘라서(seek) "where id in (...)" 로 실행
+ *   문장 하나가 잡는 행 락이 chunkSize 를 넘지 않고, 바뀐 값이 조건에 다시 걸려도 같은 행을 두 번 건드리지 않는다
+ * - 트랜잭션: 바깥 트랜잭션이 없으면 chunk 마다 커밋해서 락을 바로 놓는다. 있으면 거기에 참여한다
+ * - 영속성 컨텍스트: 벌크 연산은 1차 캐시를 거치지 않으므로, 이미 올라와 있는 회원(과 그 팀의 members 컬렉션)을
+ *   SyncMode 에 따라 detach 하거나 db 값으로 refresh 한다
+ */
+@Service
+public class BulkMutationService {
+
+    public enum SyncMode {
+        //영속성 컨텍스트에서 뺀다. 다시 조회하면 db 값으로 읽는다
+        EVICT,
+        //db 값으로 다시 읽는다 (삭제된 행은 EVICT와 같다)
+        REFRESH
+    }
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final TeamStatsMaintainer teamStatsMaintainer;
+    private final TransactionTemplate tx;
+    private final int chunkSize;
+
+    public BulkMutationService(JPAQueryFactory queryFactory, EntityManager em, TeamStatsMaintainer teamStatsMaintainer,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${bulk-mutation.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다: " + chunkSize);
+        }
+        this.queryFactory = queryFactory;
+        this.em = em;
+        this.teamStatsMaintainer = teamStatsMaintainer;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public long shiftAge(Predicate where, int delta) {
+        return shiftAge(where, delta, SyncMode.EVICT);
+    }
+
+    public long shiftAge(Predicate where, int delta, SyncMode syncMode) {
+        return mutate(where, syncMode, null, ids -> queryFactory
+                .update(member)
+                //@PreUpdate 를 거치지 않으므로 age_rank 도 같은 update 에서 바꾼다
+                //mysql 은 set 을 왼쪽부터 적용하면서 이미 바뀐 컬럼 값을 읽으므로 age 보다 먼저 둬야 바뀌기 전 age 를 읽는다
+                .set(member.ageRank, AgeRanks.caseOf(member.age.add(delta)))
+                .set(member.age, member.age.add(delta))
+                .where(member.id.in(ids))
+                .execute());
+    }
+
+    public long reassignTeam(Predicate where, Long teamId) {
+        return reassignTeam(where, teamId, SyncMode.EVICT);
+    }
+
+    //teamId가 null이면 팀에서 뺀다
+    public long reassignTeam(Predicate where, Long teamId, SyncMode syncMode) {
+        return mutate(where, syncMode, teamId, ids -> queryFactory
+                .update(member)
+                .set(member.team, teamId == null ? null : em.getReference(Team.class, teamId))
+                .where(member.id.in(ids))
+                .execute());
+    }
+
+    //삭제된 행은 refresh 할 수 없으므로 항상 EVICT
+    public long purge(Predicate where) {
+        return mutate(where, SyncMode.EVICT, null, ids -> queryFactory
+                .delete(member)
+                .where(member.id.in(ids))
+                .execute());
+    }
+
+    private record Chunk(long affected, Long lastId) {
+    }
+
+    private long mutate(Predicate where, SyncMode syncMode, Long targetTeamId, Function<List<Long>, Long> statement) {
+        Objects.requireNonNull(syncMode, "syncMode");
+        long total = 0;
+        Long lastId = null;
+        while (true) {
+            Long after = lastId;
+            Chunk chunk = tx.execute(status -> {
+                List<Long> ids = nextIds(where, after);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                //아직 flush 안 된 변경이 벌크 연산 결과를 덮어쓰지 않게 먼저 내보낸다
+                em.flush();
+                Set<Long> teamIds = teamIds(ids, targetTeamId);
+                long affected = statement.apply(ids);
+                sync(ids, syncMode, targetTeamId);
+                //벌크 연산은 엔티티 이벤트가 없으므로 관련 팀 통계는 커밋 때 다시 집계한다
+                teamStatsMaintainer.recompute(em, teamIds);
+                return new Chunk(affected, ids.get(ids.size() - 1));
+            });
+            if (chunk == null) {
+                return total;
+            }
+            total += chunk.affected();
+            lastId = chunk.lastId();
+        }
+    }
+
+    private List<Long> nextIds(Predicate where, Long after) {
+        return queryFactory
+                .select(member.id)
+                .from(member)
+                .where(where, after == null ? null : member.id.gt(after))
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch();
+    }
+
+    private Set<Long> teamIds(List<Long> ids, Long targetTeamId) {
+        Set<Long> teamIds = new HashSet<>(queryFactory
+                .select(member.team.id)
+                .distinct()
+                .from(member)
+                .where(member.id.in(ids), member.team.isNotNull())
+                .fetch());
+        if (targetTeamId != null) {
+            teamIds.add(targetTeamId);
+        }
+        return teamIds;
+    }
+
+    private void sync(List<Long> ids, SyncMode syncMode, Long targetTeamId) {
+        PersistenceContext persistenceContext = em.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        if (persistenceContext.getNumberOfManagedEntities() == 0) {
+            return;
+        }
+        Set<Long> affected = new HashSet<>(ids);
+        List<Member> members = new ArrayList<>();
+        //원래 팀, 옮겨 간 팀의 members 컬렉션도 db와 달라진다
+        Set<Team> teams = new HashSet<>();
+        for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member managed && affected.contains(managed.getId())) {
+                members.add(managed);
+                if (managed.getTeam() != null) {
+                    teams.add(managed.getTeam());
+                }
+            } else if (entry.getKey() instanceof Team managed && managed.getId().equals(targetTeamId)) {
+                teams.add(managed);
+            }
+        }
+        members.forEach(managed -> apply(managed, syncMode));
+        teams.stream()
+                .filter(team -> Hibernate.isInitialized(team) && em.contains(team))
+                //초기화 안 된 프록시/컬렉션은 나중에 db에서 읽으므로 그대로 둔다
+                .filter(team -> Hibernate.isInitialized(team.getMembers()))
+                .forEach(team -> apply(team, syncMode));
+    }
+
+    private void apply(Object entity, SyncMode syncMode) {
+        switch (syncMode) {
+            case EVICT -> em.detach(entity);
+            case REFRESH -> em.refresh(entity);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.entity.TeamStats;
+import study.querydsl.repository.TeamStatsRepository;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+import study.querydsl.repository.support.ParallelQueryExecutor.FanOut;
+import study.querydsl.repository.support.ParallelQueryExecutor.Handle;
+
+import java.time.Duration;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//회원 목록 화면: 목록, 전체 개수, 팀 집계를 동시에 조회한다
+@Service
+@RequiredArgsConstructor
+public class MemberScreenService {
+
+    private final ParallelQueryExecutor parallelQueryExecutor;
+    private final TeamStatsRepository teamStatsRepository;
+    @Value("${fan-out.timeout:3s}")
+    private Duration timeout;
+
+    public record MemberScreen(List<MemberDto> members, long total, List<TeamStats> teams) {
+    }
+
+    public MemberScreen load(String teamName, int offset, int limit) {
+        try (FanOut fanOut = parallelQueryExecutor.fanOut(timeout)) {
+            Handle<List<MemberDto>> members = fanOut.submit(qf -> qf
+                    .select(new QMemberDto(member.username, member.age))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(StringUtils.hasText(teamName) ? team.name.eq(teamName) : null)
+                    .orderBy(member.username.asc(), member.id.asc())
+                    .offset(offset)
+                    .limit(limit)
+                    .fetch());
+            Handle<Long> total = fanOut.submit(qf -> qf
+                    .select(member.count())
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(StringUtils.hasText(teamName) ? team.name.eq(teamName) : null)
+                    .fetchOne());
+            Handle<List<TeamStats>> teams = fanOut.submit(qf -> teamStatsRepository.findAll());
+
+            fanOut.await();
+            return new MemberScreen(members.get(), total.get(), teams.get());
+        }
+    }
+}
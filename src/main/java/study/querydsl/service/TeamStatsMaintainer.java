@@ -0,0 +1,292 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceException;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStats;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * 회원 insert/update/delete 이벤트로 팀별 증감분을 세션(트랜잭션) 단위로 모아뒀다가
+ * 커밋 직전에 TeamStats 에 한 번씩 반영한다 (롤백되면 버린다)
+ *
+ * - count/sum: 증감분을 더한다
+ * - min/max: 추가된 값으로는 넓히기만 하고, 현재 최소/최대값이 빠졌을 때만 해당 팀을 다시 집계한다
+ * - 통계 행은 팀을 만들 때 같은 트랜잭션에서 만든다. 벌크 연산처럼 이벤트 없이 바뀐 팀(recompute)은 해당 팀만 다시 집계한다
+ * - 통계 행은 PESSIMISTIC_WRITE 로 잠그고 고친다. 없는 행은 잠글 수 없으므로 (이 기능 전에 만든 팀)
+ *   별도 트랜잭션에서 커밋된 회원으로 집계해 먼저 만들고 (다른 트랜잭션이 먼저 만들었으면 그대로 쓴다) 다시 잠가서 읽는다
+ * 놓친 변경은 TeamStatsReconciler 가 주기적으로 찾아서 고친다
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamStatsMaintainer implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final Map<SharedSessionContractImplementor, Pending> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] state = event.getState();
+            EntityPersister persister = event.getPersister();
+            pending(event.getSession()).delta(teamId(state, persister)).add(age(state, persister));
+        } else if (event.getEntity() instanceof Team) {
+            //회원이 없어도 count 0 인 통계 행을 같이 만든다
+            pending(event.getSession()).recompute((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Object[] state = event.getState();
+        Object[] oldState = event.getOldState();
+        EntityPersister persister = event.getPersister();
+        Pending pending = pending(event.getSession());
+        Long teamId = teamId(state, persister);
+        //merge 처럼 이전 값을 모르면 현재 팀만 다시 집계한다 (이전 팀은 reconcile 에서 잡힌다)
+        if (oldState == null) {
+            pending.recompute(teamId);
+            return;
+        }
+        Long oldTeamId = teamId(oldState, persister);
+        int age = age(state, persister);
+        int oldAge = age(oldState, persister);
+        if (Objects.equals(teamId, oldTeamId) && age == oldAge) {
+            return;
+        }
+        pending.delta(oldTeamId).remove(oldAge);
+        pending.delta(teamId).add(age);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Object[] state = event.getDeletedState();
+            EntityPersister persister = event.getPersister();
+            pending(event.getSession()).delta(teamId(state, persister)).remove(age(state, persister));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    //벌크 update/delete 처럼 이벤트가 나가지 않는 변경 후에 호출한다. 현재 트랜잭션 커밋 때 다시 집계된다
+    public void recompute(EntityManager em, Collection<Long> teamIds) {
+        Pending pending = pending(em.unwrap(EventSource.class));
+        teamIds.forEach(pending::recompute);
+    }
+
+    //통계 행을 잠가서 읽는다. 팀이 없거나 이 트랜잭션에서 만든 팀이면 null
+    TeamStats lock(EntityManager em, Long teamId) {
+        TeamStats stats = em.find(TeamStats.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+        if (stats != null) {
+            return stats;
+        }
+        createIfAbsent(teamId);
+        return em.find(TeamStats.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    //커밋된 회원으로 집계한 통계 행을 따로 커밋한다. 같은 팀의 행을 동시에 만들면 한쪽은 pk 충돌로 실패하고 먼저 만든 행을 쓴다
+    void createIfAbsent(Long teamId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            Tuple row = TeamStatsReconciler.aggregate(new JPAQueryFactory(em))
+                    .where(team.id.eq(teamId))
+                    .fetchOne();
+            if (row != null) {
+                TeamStats stats = new TeamStats(teamId, row.get(team.name));
+                TeamStatsReconciler.copy(row, stats);
+                em.persist(stats);
+                em.flush();
+            }
+            em.getTransaction().commit();
+        } catch (PersistenceException e) {
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    private static boolean isConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Pending pending(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            Pending created = new Pending();
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) created);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) created);
+            return created;
+        });
+    }
+
+    private static int age(Object[] state, EntityPersister persister) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    private static Long teamId(Object[] state, EntityPersister persister) {
+        Object value = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        if (value == null) {
+            return null;
+        }
+        //프록시를 초기화하지 않고 id만 꺼낸다
+        if (value instanceof HibernateProxy proxy) {
+            return (Long) proxy.getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) value).getId();
+    }
+
+    private static class Delta {
+        long count;
+        long sum;
+        Integer addedMin;
+        Integer addedMax;
+        Integer removedMin;
+        Integer removedMax;
+        boolean recompute;
+
+        void add(int age) {
+            count++;
+            sum += age;
+            addedMin = addedMin == null ? age : Math.min(addedMin, age);
+            addedMax = addedMax == null ? age : Math.max(addedMax, age);
+        }
+
+        void remove(int age) {
+            count--;
+            sum -= age;
+            removedMin = removedMin == null ? age : Math.min(removedMin, age);
+            removedMax = removedMax == null ? age : Math.max(removedMax, age);
+        }
+
+        //현재 최소/최대값이 빠졌으면 남은 회원에서 다시 구해야 한다
+        boolean removesBound(TeamStats stats) {
+            return (removedMin != null && stats.getAgeMin() != null && removedMin <= stats.getAgeMin())
+                    || (removedMax != null && stats.getAgeMax() != null && removedMax >= stats.getAgeMax());
+        }
+    }
+
+    private class Pending implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        //팀이 없는 회원은 집계하지 않는다
+        private final Map<Long, Delta> deltas = new HashMap<>();
+        private final Delta none = new Delta();
+
+        Delta delta(Long teamId) {
+            return teamId == null ? none : deltas.computeIfAbsent(teamId, id -> new Delta());
+        }
+
+        void recompute(Long teamId) {
+            delta(teamId).recompute = true;
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            pending.remove(session);
+            if (deltas.isEmpty()) {
+                return;
+            }
+            JPAQueryFactory queryFactory = new JPAQueryFactory(session);
+            //팀 id 순으로 락을 잡아서 트랜잭션끼리 교착되지 않게 한다
+            new TreeMap<>(deltas).forEach((teamId, delta) -> apply(session, queryFactory, teamId, delta));
+            session.flush();
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            pending.remove(session);
+        }
+
+        private void apply(SessionImplementor session, JPAQueryFactory queryFactory, Long teamId, Delta delta) {
+            TeamStats stats = lock(session, teamId);
+            if (stats == null || delta.recompute) {
+                recompute(session, queryFactory, teamId, stats);
+                return;
+            }
+            stats.setMemberCount(stats.getMemberCount() + delta.count);
+            stats.setAgeSum(stats.getAgeSum() + delta.sum);
+            if (stats.getMemberCount() == 0) {
+                stats.setAgeMin(null);
+                stats.setAgeMax(null);
+            } else if (delta.removesBound(stats)) {
+                Tuple bounds = queryFactory
+                        .select(member.age.min(), member.age.max())
+                        .from(member)
+                        .where(member.team.id.eq(teamId))
+                        .fetchOne();
+                stats.setAgeMin(bounds.get(member.age.min()));
+                stats.setAgeMax(bounds.get(member.age.max()));
+            } else if (delta.addedMin != null) {
+                stats.setAgeMin(stats.getAgeMin() == null ? delta.addedMin : Math.min(stats.getAgeMin(), delta.addedMin));
+                stats.setAgeMax(stats.getAgeMax() == null ? delta.addedMax : Math.max(stats.getAgeMax(), delta.addedMax));
+            }
+        }
+
+        private void recompute(SessionImplementor session, JPAQueryFactory queryFactory, Long teamId, TeamStats stats) {
+            Tuple row = TeamStatsReconciler.aggregate(queryFactory)
+                    .where(team.id.eq(teamId))
+                    .fetchOne();
+            //팀이 삭제됐으면 통계도 지운다. stats 가 null 이면 이 트랜잭션에서 만든 팀이라 다른 트랜잭션과 겹치지 않는다
+            if (row == null) {
+                if (stats != null) {
+                    session.remove(stats);
+                }
+                return;
+            }
+            if (stats == null) {
+                stats = new TeamStats(teamId, row.get(team.name));
+                session.persist(stats);
+            }
+            TeamStatsReconciler.copy(row, stats);
+        }
+    }
+}
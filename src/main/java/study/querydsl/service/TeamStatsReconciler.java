@@ -0,0 +1,122 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.TeamStats;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+/*
+ * TeamStats 를 회원 테이블에서 다시 집계해서 덮어쓰고, 값이 달랐던 팀(drift)을 경고로 남긴다
+ * 이벤트를 거치지 않은 변경(네이티브 쿼리, 다른 애플리케이션, 팀 이름 변경 등)을 주기적으로 바로잡는 용도
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeamStatsReconciler {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final TeamStatsMaintainer teamStatsMaintainer;
+
+    //팀별 집계: team.id, team.name, count, sum, min, max (회원 없는 팀은 count 0)
+    static JPAQuery<Tuple> aggregate(JPAQueryFactory queryFactory) {
+        return queryFactory
+                .select(team.id, team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name);
+    }
+
+    //aggregate() 한 행을 stats 에 덮어쓴다. 값이 바뀌었으면 true
+    static boolean copy(Tuple row, TeamStats stats) {
+        long count = row.get(member.count());
+        //sum(int)는 구현에 따라 Long 으로 올 수 있다
+        Number sum = row.get(3, Number.class);
+        String name = row.get(team.name);
+        Integer min = row.get(member.age.min());
+        Integer max = row.get(member.age.max());
+        long ageSum = sum == null ? 0 : sum.longValue();
+
+        boolean changed = stats.getMemberCount() != count
+                || stats.getAgeSum() != ageSum
+                || !Objects.equals(stats.getTeamName(), name)
+                || !Objects.equals(stats.getAgeMin(), min)
+                || !Objects.equals(stats.getAgeMax(), max);
+        stats.setTeamName(name);
+        stats.setMemberCount(count);
+        stats.setAgeSum(ageSum);
+        stats.setAgeMin(min);
+        stats.setAgeMax(max);
+        return changed;
+    }
+
+    @Scheduled(fixedDelayString = "${team-stats.reconcile-interval:PT10M}",
+            initialDelayString = "${team-stats.reconcile-interval:PT10M}")
+    @Transactional
+    public int reconcile() {
+        int drifted = 0;
+        //없는 행은 잠글 수 없으므로 먼저 만든다 (커밋된 회원으로 집계해서 만드므로 drift 로 센다)
+        List<Long> missing = queryFactory
+                .select(team.id)
+                .from(team)
+                .where(JPAExpressions.selectOne().from(teamStats).where(teamStats.teamId.eq(team.id)).notExists())
+                .orderBy(team.id.asc())
+                .fetch();
+        for (Long teamId : missing) {
+            log.warn("team stats missing: team {}", teamId);
+            teamStatsMaintainer.createIfAbsent(teamId);
+            drifted++;
+        }
+
+        //집계하기 전에 통계 행을 모두 잠근다. TeamStatsMaintainer 처럼 팀 id 순서로 잠가서 교착을 피한다
+        //잠그기 전에 커밋된 회원 변경은 집계에 보이고, 아직 커밋 전인 변경은 이 트랜잭션이 끝난 뒤 증감분으로 더해진다
+        Map<Long, TeamStats> stats = queryFactory
+                .selectFrom(teamStats)
+                .orderBy(teamStats.teamId.asc())
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch().stream()
+                .collect(Collectors.toMap(TeamStats::getTeamId, Function.identity()));
+
+        List<Tuple> rows = aggregate(queryFactory).fetch();
+        for (Tuple row : rows) {
+            TeamStats current = stats.remove(row.get(team.id));
+            //잠근 뒤에 생긴 팀은 다음 실행에서 본다
+            if (current == null) {
+                continue;
+            }
+            String before = current.toString();
+            if (copy(row, current)) {
+                log.warn("team stats drift: {} -> {}", before, current);
+                drifted++;
+            }
+        }
+        //삭제된 팀의 통계
+        for (TeamStats orphan : stats.values()) {
+            log.warn("team stats orphan: {}", orphan);
+            em.remove(orphan);
+            drifted++;
+        }
+        if (drifted > 0) {
+            log.warn("team stats reconciled: {} of {} teams drifted", drifted, rows.size());
+        }
+        return drifted;
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCounter;
+import study.querydsl.repository.TeamMemberBatchLoader;
+import study.querydsl.service.BulkInsertService;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * 팀 1만 개의 Team.members를 순회할 때
+ * 팀마다 지연 로딩(배치 페치 끔) vs TeamMemberBatchLoader(in 쿼리 배치) 비교 (./gradlew benchmark)
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.default_batch_fetch_size=1",
+        "batch-loader.size=100"
+})
+@Transactional
+class BatchFetchBenchmarkTest {
+
+    static final int TEAMS = 10_000;
+    static final int MEMBERS_PER_TEAM = 5;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    BulkInsertService bulkInsertService;
+    @Autowired
+    TeamMemberBatchLoader batchLoader;
+
+    @BeforeEach
+    public void before(){
+        List<Team> teams = IntStream.range(0, TEAMS).mapToObj(i -> new Team("team" + i)).toList();
+        bulkInsertService.persistAll(teams.stream());
+        bulkInsertService.insertMembers(IntStream.range(0, TEAMS * MEMBERS_PER_TEAM)
+                .mapToObj(i -> new MemberRow("member" + i, i % 100, teams.get(i % TEAMS).getId())));
+    }
+
+    @Test
+    public void lazyVsBatchLoader(){
+        run("lazy per team", teams -> {});
+        run("batch loader", batchLoader::initializeMembers);
+    }
+
+    private void run(String name, Consumer<List<Team>> preload) {
+        em.clear();
+        long start = System.nanoTime();
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            List<Team> teams = queryFactory.selectFrom(team).fetch();
+            preload.accept(teams);
+            long members = 0;
+            for (Team t : teams) {
+                members += t.getMembers().size();
+            }
+            assertThat(members).isEqualTo((long) TEAMS * MEMBERS_PER_TEAM);
+            System.out.printf("%-15s queries=%,6d  elapsed=%,d ms%n",
+                    name, scope.count(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.entity.Team;
+import study.querydsl.service.BulkInsertService;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/*
+ * 회원 100만 건 적재 처리량 (./gradlew benchmark)
+ * 적재 중 힙 사용량이 chunk 크기 수준에서 유지되는지도 같이 본다
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class BulkInsertBenchmarkTest {
+
+    static final int ROWS = 1_000_000;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @Test
+    public void loadOneMillionMembers(){
+        List<Team> teams = IntStream.range(0, 100).mapToObj(i -> new Team("team" + i)).toList();
+        bulkInsertService.persistAll(teams.stream());
+        List<Long> teamIds = teams.stream().map(Team::getId).toList();
+
+        Runtime runtime = Runtime.getRuntime();
+        long[] maxUsedHeap = {0};
+        long start = System.nanoTime();
+
+        long inserted = bulkInsertService.insertMembers(IntStream.range(0, ROWS)
+                .mapToObj(i -> {
+                    if (i % 100_000 == 0) {
+                        maxUsedHeap[0] = Math.max(maxUsedHeap[0], runtime.totalMemory() - runtime.freeMemory());
+                    }
+                    return new MemberRow("member" + i, i % 100, teamIds.get(i % teamIds.size()));
+                }));
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("inserted=%,d  elapsed=%,d ms  throughput=%,.0f rows/s  max used heap=%,d MB%n",
+                inserted, elapsedMs, inserted * 1000.0 / elapsedMs, maxUsedHeap[0] / 1024 / 1024);
+
+        assertThat(queryFactory.select(member.count()).from(member).fetchOne()).isEqualTo(ROWS);
+    }
+}
@@ -0,0 +1,93 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberKeysetRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/*
+ * ./gradlew benchmark 로 실행 (일반 test 태스크에서는 제외됨)
+ * offset 페이징과 키셋 페이징을 페이지 깊이별로 비교한다
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class KeysetPagingBenchmarkTest {
+
+    static final int ROWS = 200_000;
+    static final int PAGE_SIZE = 20;
+    static final int ITERATIONS = 30;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberKeysetRepository memberKeysetRepository;
+
+    @BeforeEach
+    public void before(){
+        //persist를 20만번 하는 대신 h2 system_range로 한 번에 적재 (시퀀스와 겹치지 않도록 id를 띄워둔다)
+        //age_rank 는 @PrePersist 를 거치지 않으므로 Member.rankOf 와 같은 규칙으로 같이 넣는다
+        em.createNativeQuery("insert into member (member_id, username, age, age_rank) " +
+                        "select x + 1000000, concat('member', lpad(cast(x as varchar), 7, '0')), mod(x, 100), " +
+                        "case when mod(x, 100) <= 20 then 2 when mod(x, 100) <= 30 then 1 else 3 end " +
+                        "from system_range(1, " + ROWS + ")")
+                .executeUpdate();
+        em.clear();
+    }
+
+    @Test
+    public void offsetVsKeyset(){
+        for (int offset : new int[]{0, 1_000, 10_000, 100_000, ROWS - PAGE_SIZE}) {
+            MemberCursor cursor = offset == 0 ? null : MemberCursor.of(offsetPage(offset - 1, 1).get(0));
+
+            //결과가 같은지 먼저 확인
+            assertThat(memberKeysetRepository.findPage(cursor, PAGE_SIZE, Order.DESC).getContent())
+                    .containsExactlyElementsOf(offsetPage(offset, PAGE_SIZE));
+
+            long offsetNanos = measure(() -> offsetPage(offset, PAGE_SIZE));
+            long keysetNanos = measure(() -> memberKeysetRepository.findPage(cursor, PAGE_SIZE, Order.DESC));
+
+            System.out.printf("offset=%,7d  offset paging=%8.3f ms  keyset paging=%8.3f ms%n",
+                    offset, offsetNanos / 1_000_000.0, keysetNanos / 1_000_000.0);
+        }
+    }
+
+    private List<Member> offsetPage(long offset, int size) {
+        return queryFactory
+                .selectFrom(member)
+                .where(member.username.isNotNull())
+                .orderBy(member.username.desc(), member.age.desc(), member.id.desc())
+                .offset(offset)
+                .limit(size)
+                .fetch();
+    }
+
+    //워밍업 후 평균 소요 시간 (영속성 컨텍스트가 커지지 않도록 매번 clear)
+    private long measure(Runnable query) {
+        for (int i = 0; i < 5; i++) {
+            query.run();
+            em.clear();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.run();
+            em.clear();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ * 레플리카 수에 따른 읽기 처리량 (./gradlew benchmark)
+ * db 마다 커넥션 풀 2개, 쿼리 하나에 5ms 가 걸리게 해서 풀 크기가 병목이 되게 한다
+ * -> 레플리카가 늘어나는 만큼 처리량이 늘어야 한다
+ */
+@Tag("benchmark")
+public class ReadRoutingBenchmarkTest {
+
+    static final int POOL_SIZE = 2;
+    static final int QUERY_MILLIS = 5;
+    static final int THREADS = 16;
+    static final long DURATION_MILLIS = 2_000;
+
+    //h2 에서 select pause(5) 로 호출
+    public static int pause(int millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return millis;
+    }
+
+    @Test
+    public void readThroughputScalesWithReplicas() throws Exception {
+        double primaryOnly = run(0);
+        double oneReplica = run(1);
+        double threeReplicas = run(3);
+
+        assertThat(threeReplicas).isGreaterThan(oneReplica * 2);
+        assertThat(oneReplica).isGreaterThan(primaryOnly * 0.5);
+    }
+
+    private double run(int replicaCount) throws Exception {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 1; i <= replicaCount; i++) {
+            replicas.put("replica" + i, node("replica" + i));
+        }
+        try (ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(node("primary"), replicas)) {
+            DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            TransactionTemplate readTx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            readTx.setReadOnly(true);
+
+            LongAdder reads = new LongAdder();
+            long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Runnable> workers = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                workers.add(() -> {
+                    while (System.currentTimeMillis() < deadline) {
+                        readTx.executeWithoutResult(status ->
+                                jdbcTemplate.queryForObject("select pause(?)", Integer.class, QUERY_MILLIS));
+                        reads.increment();
+                    }
+                });
+            }
+            workers.forEach(executor::execute);
+            executor.shutdown();
+            assertThat(executor.awaitTermination(DURATION_MILLIS * 5, TimeUnit.MILLISECONDS)).isTrue();
+
+            double perSecond = reads.sum() * 1000.0 / DURATION_MILLIS;
+            System.out.printf("replicas=%d  reads/s=%,.0f%n", replicaCount, perSecond);
+            return perSecond;
+        }
+    }
+
+    private static DataSource node(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:h2:mem:throughput-" + name);
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+        new JdbcTemplate(dataSource).execute("create alias if not exists pause for '"
+                + ReadRoutingBenchmarkTest.class.getName() + ".pause'");
+        return dataSource;
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydsl.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.entity.Team;
+import study.querydsl.service.BulkInsertService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/*
+ * /v1/members 를 동시 사용자 CLIENTS 명이 DURATION 동안 호출했을 때 초당 요청 수와 p99 지연 (./gradlew benchmark)
+ * 톰캣 플랫폼 스레드 풀 vs 가상 스레드(virtual 프로파일: 커넥션 풀 20 + 동시 요청 제한 40)
+ * 가상 스레드 쪽은 java 21 이상에서만 돈다
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmarkTest {
+
+    static final int MEMBERS = 100_000;
+    static final int CLIENTS = 400;
+    static final Duration DURATION = Duration.ofSeconds(10);
+
+    @Test
+    public void platformVsVirtualThreads() throws Exception {
+        Result platform = run("platform");
+        assumeTrue(Runtime.version().feature() >= 21, "가상 스레드는 java 21 이상");
+        Result virtual = run("virtual", "--spring.profiles.active=virtual");
+
+        System.out.println(platform);
+        System.out.println(virtual);
+        assertThat(virtual.ok()).isPositive();
+    }
+
+    private Result run(String name, String... args) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=warn",
+                        "decorator.datasource.enabled=false")
+                .run(args)) {
+            load(context.getBean(BulkInsertService.class));
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            return load(name, port);
+        }
+    }
+
+    private void load(BulkInsertService bulkInsertService) {
+        List<Team> teams = IntStream.range(0, MEMBERS / 100).mapToObj(i -> new Team("team" + i)).toList();
+        bulkInsertService.persistAll(teams.stream());
+        bulkInsertService.insertMembers(IntStream.range(0, MEMBERS)
+                .mapToObj(i -> new MemberRow("member" + i, i % 100, teams.get(i % teams.size()).getId())));
+    }
+
+    private Result load(String name, int port) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        LongAdder ok = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        long deadline = System.nanoTime() + DURATION.toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            int seed = c;
+            clients.execute(() -> {
+                int i = seed;
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(
+                            "http://localhost:" + port + "/v1/members?teamName=team" + (i++ % (MEMBERS / 100)) + "&ageGoe=10&ageLoe=60"))
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies.add(System.nanoTime() - start);
+                        (response.statusCode() == 200 ? ok : rejected).increment();
+                    } catch (Exception e) {
+                        rejected.increment();
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(DURATION.toSeconds() * 3, TimeUnit.SECONDS);
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        long p99 = sorted.isEmpty() ? 0 : sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+        return new Result(name, ok.sum() / (double) DURATION.toSeconds(), p99 / 1_000_000, ok.sum(), rejected.sum());
+    }
+
+    record Result(String name, double requestsPerSecond, long p99Millis, long ok, long rejected) {
+        @Override
+        public String toString() {
+            return String.format("%-8s rps=%,8.0f  p99=%,5d ms  ok=%,d  rejected=%,d",
+                    name, requestsPerSecond, p99Millis, ok, rejected);
+        }
+    }
+}
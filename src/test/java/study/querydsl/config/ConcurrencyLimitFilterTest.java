@@ -0,0 +1,43 @@
+package study.querydsl.config;
+
+import jakarta.servlet.AsyncContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConcurrencyLimitFilterTest {
+
+    ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(10));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    public void syncRequestReleasesPermit() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/members"), response, (req, res) -> {
+            assertThat(filter.availablePermits()).isZero();
+        });
+
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+
+    //스트리밍 요청은 비동기 처리가 끝날 때까지 허가를 잡고 있다
+    @Test
+    public void asyncRequestHoldsPermitUntilComplete() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members/stream");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+        assertThat(filter.availablePermits()).isZero();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/members"), rejected, (req, res) -> {});
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        AsyncContext asyncContext = request.getAsyncContext();
+        asyncContext.complete();
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,109 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+//h2 인메모리 db 3개를 primary, replica1, replica2 로 두고 어디서 읽었는지는 node 테이블 값으로 확인한다
+class ReplicaRoutingDataSourceTest {
+
+    ReplicaRoutingDataSource routingDataSource;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readTx;
+    TransactionTemplate writeTx;
+
+    @BeforeEach
+    public void before(){
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica1", node("replica1"));
+        replicas.put("replica2", node("replica2"));
+        routingDataSource = new ReplicaRoutingDataSource(node("primary"), replicas);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void after(){
+        routingDataSource.getReplicas().values().forEach(ds -> new JdbcTemplate(ds).execute("drop all objects"));
+        new JdbcTemplate(routingDataSource.getResolvedDefaultDataSource()).execute("drop all objects");
+    }
+
+    @Test
+    public void readOnlyGoesToReplicasRoundRobin(){
+        List<String> nodes = IntStream.range(0, 4).mapToObj(i -> readNode()).toList();
+
+        assertThat(nodes).containsExactly("replica1", "replica2", "replica1", "replica2");
+    }
+
+    @Test
+    public void writesAndNoTransactionGoToPrimary(){
+        assertThat(writeTx.execute(status -> currentNode())).isEqualTo("primary");
+        assertThat(currentNode()).isEqualTo("primary");
+    }
+
+    @Test
+    public void skipUnhealthyReplicaAndFallBackToPrimary(){
+        routingDataSource.setHealthy("replica1", false);
+        assertThat(List.of(readNode(), readNode())).containsOnly("replica2");
+
+        routingDataSource.setHealthy("replica2", false);
+        assertThat(readNode()).isEqualTo("primary");
+
+        routingDataSource.setHealthy("replica1", true);
+        assertThat(readNode()).isEqualTo("replica1");
+    }
+
+    @Test
+    public void lagMonitorRemovesLaggingReplica(){
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(routingDataSource, "select seconds from replica_lag", Duration.ofSeconds(5));
+        new JdbcTemplate(routingDataSource.getReplicas().get("replica2")).update("update replica_lag set seconds = 30");
+
+        monitor.probe();
+
+        assertThat(routingDataSource.isHealthy("replica1")).isTrue();
+        assertThat(routingDataSource.isHealthy("replica2")).isFalse();
+        assertThat(List.of(readNode(), readNode())).containsOnly("replica1");
+
+        //따라잡으면 다시 넣는다
+        new JdbcTemplate(routingDataSource.getReplicas().get("replica2")).update("update replica_lag set seconds = 0.5");
+        monitor.probe();
+        assertThat(routingDataSource.isHealthy("replica2")).isTrue();
+    }
+
+    private String readNode() {
+        return readTx.execute(status -> currentNode());
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static DataSource node(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node(name varchar(20))");
+        jdbc.update("insert into node values (?)", name);
+        jdbc.execute("create table replica_lag(seconds double)");
+        jdbc.update("insert into replica_lag values (0)");
+        return dataSource;
+    }
+}
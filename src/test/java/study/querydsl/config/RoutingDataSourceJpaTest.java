@@ -0,0 +1,89 @@
+package study.querydsl.config;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * 실제 빈 구성(RoutingDataSourceConfig + p6spy + JpaTransactionManager)으로 querydsl 쿼리가 어디로 가는지 확인한다
+ * primary 와 replica1 은 같은 h2 db 에 다른 사용자로 접속하고, 커넥션의 current_user 로 구분한다
+ */
+@SpringBootTest(properties = {
+        "datasource.routing.enabled=true",
+        "datasource.routing.primary.url=jdbc:h2:mem:routing-jpa;DB_CLOSE_DELAY=-1;INIT=CREATE USER IF NOT EXISTS REPLICA PASSWORD '' ADMIN",
+        "datasource.routing.replicas.replica1.url=jdbc:h2:mem:routing-jpa;DB_CLOSE_DELAY=-1",
+        "datasource.routing.replicas.replica1.username=replica",
+        "explain-check.enabled=false"
+})
+class RoutingDataSourceJpaTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate readTx;
+    TransactionTemplate writeTx;
+
+    @BeforeEach
+    public void before(){
+        readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        writeTx = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void jpaTransactionManager(){
+        assertThat(transactionManager).isInstanceOf(JpaTransactionManager.class);
+    }
+
+    @Test
+    public void readOnlyQuerydslGoesToReplica(){
+        String user = readTx.execute(status -> {
+            queryFactory.selectFrom(team).where(team.name.eq("routing-team")).fetch();
+            return currentUser();
+        });
+
+        assertThat(user).isEqualTo("REPLICA");
+    }
+
+    @Test
+    public void writeGoesToPrimary(){
+        String user = writeTx.execute(status -> {
+            em.persist(new Team("routing-team"));
+            em.flush();
+            String current = currentUser();
+            status.setRollbackOnly();
+            return current;
+        });
+
+        assertThat(user).isEqualTo("SA");
+    }
+
+    @Test
+    public void readWriteTransactionQueryGoesToPrimary(){
+        String user = writeTx.execute(status -> {
+            queryFactory.selectFrom(team).fetch();
+            return currentUser();
+        });
+
+        assertThat(user).isEqualTo("SA");
+    }
+
+    //트랜잭션 안에서는 같은 커넥션을 쓰므로 앞의 querydsl 쿼리가 나간 곳과 같다
+    private String currentUser() {
+        return (String) em.createNativeQuery("select current_user").getSingleResult();
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.monitoring.ExplainPlanChecker.Finding;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+class ExplainPlanCheckerTest {
+
+    @Autowired
+    ExplainPlanChecker explainPlanChecker;
+
+    @Test
+    public void indexedHotQueriesHaveNoFullScan(){
+        List<Finding> findings = explainPlanChecker.check(ExplainPlanChecker.defaults());
+
+        assertThat(findings).extracting(Finding::query)
+                .doesNotContain("member by username", "member by age sorted", "members of team", "team by name");
+    }
+
+    @Test
+    public void reportFullScan(){
+        //앞에 %가 붙은 like 는 인덱스를 탈 수 없다
+        HotQuery unindexed = new HotQuery("username suffix", qf -> qf
+                .selectFrom(member)
+                .where(member.username.endsWith("1")));
+
+        List<Finding> findings = explainPlanChecker.check(List.of(unindexed));
+
+        assertThat(findings).hasSize(1);
+        assertThat(findings.get(0).sql()).containsIgnoringCase("like");
+        assertThat(findings.get(0).plan()).contains("tableScan");
+    }
+
+    //mysql 은 type 컬럼이 ALL 일 때만. 계획 텍스트의 UNION ALL 은 전체 스캔이 아니다
+    @Test
+    public void fullScanPattern(){
+        assertThat(ExplainPlanChecker.FULL_SCAN.matcher("1 SIMPLE member type: ALL null null").find()).isTrue();
+        assertThat(ExplainPlanChecker.FULL_SCAN.matcher("1 SIMPLE member type: ref idx_member_team_id").find()).isFalse();
+        assertThat(ExplainPlanChecker.FULL_SCAN.matcher("Append -> Index Scan ... UNION ALL").find()).isFalse();
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.monitoring;
+
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.*;
+
+class QueryCountInterceptorTest {
+
+    QueryCountInterceptor interceptor = new QueryCountInterceptor(3, 20);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    public void after(){
+        assertThat(QueryCounter.current()).isNull();
+    }
+
+    @Test
+    public void syncRequest(){
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members");
+
+        interceptor.preHandle(request, response, null);
+        assertThat(QueryCounter.current()).isNotNull();
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    //첫 디스패치가 끝나면 스레드에서 스코프가 떨어지고, ASYNC 디스패치는 같은 스코프로 마무리한다
+    @Test
+    public void asyncRequestReleasesThread(){
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members/stream");
+
+        interceptor.preHandle(request, response, null);
+        QueryCounter.Scope first = QueryCounter.current();
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        assertThat(QueryCounter.current()).isNull();
+
+        QueryCounter.record("select * from member");
+        assertThat(first.count()).isZero();
+
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, null);
+        assertThat(QueryCounter.current()).isNull();
+        interceptor.afterCompletion(request, response, null, null);
+    }
+}
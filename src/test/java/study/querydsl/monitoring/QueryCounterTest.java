@@ -0,0 +1,113 @@
+package study.querydsl.monitoring;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//N+1을 재현하기 위해 배치 페치(default_batch_fetch_size)를 끈 상태로 띄운다
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.default_batch_fetch_size=1")
+@Transactional
+class QueryCounterTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        for (int i = 0; i < 4; i++) {
+            Team t = new Team("team" + i);
+            em.persist(t);
+            em.persist(new Member("member" + i, 10 * i, t));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    //member.getTeam()을 루프에서 건드리면 회원 수만큼 team 조회가 추가로 나간다
+    @Test
+    public void detectLazyTeamLoading(){
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            List<Member> members = queryFactory.selectFrom(member).fetch();
+            for (Member m : members) {
+                m.getTeam().getName();
+            }
+
+            assertThat(scope.count()).isEqualTo(5);
+            List<NPlusOneSuspect> suspects = scope.suspects(3);
+            assertThat(suspects).hasSize(1);
+            NPlusOneSuspect suspect = suspects.get(0);
+            assertThat(suspect.getTable()).isEqualTo("team");
+            assertThat(suspect.getCount()).isEqualTo(4);
+            assertThat(suspect.isLazyLoading()).isTrue();
+            assertThat(suspect.getCallSite()).contains("QueryCounterTest.detectLazyTeamLoading");
+
+            assertThatThrownBy(() -> scope.assertAtMost(1))
+                    .isInstanceOf(QueryBudgetExceededException.class)
+                    .hasMessageContaining("team");
+        }
+    }
+
+    @Test
+    public void fetchJoinStaysWithinBudget(){
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .join(member.team, team).fetchJoin()
+                    .fetch();
+            for (Member m : members) {
+                m.getTeam().getName();
+            }
+
+            scope.assertAtMost(1);
+            scope.assertNoNPlusOne(2);
+        }
+    }
+
+    @Test
+    public void nestedScopes(){
+        try (QueryCounter.Scope outer = QueryCounter.start()) {
+            queryFactory.selectFrom(member).fetch();
+            try (QueryCounter.Scope inner = QueryCounter.start()) {
+                queryFactory.selectFrom(team).fetch();
+                assertThat(inner.count()).isEqualTo(1);
+            }
+            assertThat(outer.count()).isEqualTo(2);
+            assertThat(QueryCounter.current()).isSameAs(outer);
+        }
+        assertThat(QueryCounter.current()).isNull();
+    }
+
+    @Test
+    public void detectLazyCollectionLoading(){
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            for (Team t : queryFactory.selectFrom(team).fetch()) {
+                t.getMembers().size();
+            }
+
+            NPlusOneSuspect suspect = scope.suspects(3).get(0);
+            assertThat(suspect.getTable()).isEqualTo("member");
+            assertThat(suspect.getColumn()).isEqualTo("team_id");
+            assertThat(suspect.isLazyLoading()).isTrue();
+        }
+    }
+
+    @Test
+    public void shapeIgnoresLiterals(){
+        assertThat(QueryCounter.shapeOf("select * from member m1_0 where m1_0.age = 10  and m1_0.username='a''b'"))
+                .isEqualTo("select * from member m1_0 where m1_0.age = ? and m1_0.username=?");
+    }
+}
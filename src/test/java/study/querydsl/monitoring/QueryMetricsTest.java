@@ -0,0 +1,124 @@
+package study.querydsl.monitoring;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.monitoring.QueryShapesEndpoint.ShapeSummary;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.support.InstrumentedJPAQuery;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+    @Autowired
+    QueryMetrics queryMetrics;
+    @Autowired
+    QueryShapesEndpoint queryShapesEndpoint;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void before(){
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("metrics-member" + i, 77));
+        }
+    }
+
+    @Test
+    public void sameShapeWithDifferentValues(){
+        String jpql = queryFactory.selectFrom(member).where(member.age.eq(77), member.username.startsWith("metrics-")).toString();
+        long before = timerOf(jpql).count();
+
+        List<Member> all = queryFactory.selectFrom(member).where(member.age.eq(77), member.username.startsWith("metrics-")).fetch();
+        queryFactory.selectFrom(member).where(member.age.eq(78), member.username.startsWith("metrics-")).fetch();
+
+        assertThat(all).hasSize(5);
+        Timer timer = timerOf(jpql);
+        assertThat(timer.count()).isEqualTo(before + 2);
+        assertThat(meterRegistry.get("querydsl.query.rows").tag("shape", QueryMetrics.fingerprint(jpql)).summary().totalAmount())
+                .isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    public void preparedQueriesAreRecorded(){
+        memberQueryRepository.findByUsername("metrics-member1");
+
+        assertThat(queryShapesEndpoint.shapes(100)).extracting(ShapeSummary::jpql)
+                .anyMatch(jpql -> jpql.contains("username = ?1") && !jpql.contains("age"));
+    }
+
+    @Test
+    public void failuresAreCounted(){
+        assertThatThrownBy(() -> queryFactory.selectFrom(member).where(member.age.eq(77)).fetchOne())
+                .isInstanceOf(com.querydsl.core.NonUniqueResultException.class);
+
+        String jpql = queryFactory.selectFrom(member).where(member.age.eq(77)).toString();
+        assertThat(queryMetrics.shape(jpql).errorCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void topShapesEndpoint(){
+        queryFactory.selectFrom(member).fetch();
+
+        List<ShapeSummary> top = queryShapesEndpoint.shapes(3);
+
+        assertThat(top).hasSizeLessThanOrEqualTo(3).isNotEmpty();
+        assertThat(top).isSortedAccordingTo((a, b) -> Double.compare(b.totalMs(), a.totalMs()));
+    }
+
+    //clone() 으로 만든 쿼리도 기록된다
+    @Test
+    public void clonedQueriesAreRecorded(){
+        JPAQuery<Member> query = queryFactory.selectFrom(member).where(member.username.startsWith("metrics-"));
+        String jpql = query.toString();
+        long before = timerOf(jpql).count();
+
+        JPAQuery<Member> cloned = query.clone();
+        assertThat(cloned).isInstanceOf(InstrumentedJPAQuery.class);
+        assertThat(cloned.fetch()).hasSize(5);
+        assertThat(timerOf(jpql).count()).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void shapesOverLimitGoToOther(){
+        QueryMetrics small = new QueryMetrics(meterRegistry, 1);
+        small.record("select 1", 1_000, 1);
+
+        assertThat(small.shape("select 2").getFingerprint()).isEqualTo(QueryMetrics.OTHER);
+    }
+
+    //hashCode 가 같은 jpql ("Aa", "BB") 도 미터를 따로 쓴다
+    @Test
+    public void fingerprintDoesNotCollideOnHashCode(){
+        String a = "select member1 from Member member1 where member1.username = 'Aa'";
+        String b = "select member1 from Member member1 where member1.username = 'BB'";
+        assertThat(a.hashCode()).isEqualTo(b.hashCode());
+
+        assertThat(QueryMetrics.fingerprint(a)).hasSize(16).isNotEqualTo(QueryMetrics.fingerprint(b));
+        assertThat(queryMetrics.shape(a).getTimer()).isNotSameAs(queryMetrics.shape(b).getTimer());
+    }
+
+    private Timer timerOf(String jpql) {
+        return queryMetrics.shape(jpql).getTimer();
+    }
+}
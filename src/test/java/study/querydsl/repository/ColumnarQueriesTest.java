@@ -0,0 +1,160 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ColumnarQueries;
+import study.querydsl.repository.support.ColumnarResult;
+import study.querydsl.repository.support.DictionaryStringColumn;
+import study.querydsl.repository.support.IntColumn;
+import study.querydsl.repository.support.IntGroups;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class ColumnarQueriesTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    ColumnarQueries columnarQueries;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+        em.flush();
+        em.clear();
+    }
+
+    //fetchSize 보다 행이 많아도 Tuple 로 받은 것과 같은 값
+    @Test
+    public void sameValuesAsTuple(){
+        List<Tuple> tuples = queryFactory
+                .select(member.username, member.age, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        ColumnarResult result = columnarQueries.fetch(queryFactory
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.username.asc()), 2, member.username, member.age, team.name);
+
+        DictionaryStringColumn usernames = result.strings(member.username);
+        IntColumn ages = result.ints(member.age);
+        DictionaryStringColumn teamNames = result.strings(team.name);
+        assertThat(result.size()).isEqualTo(tuples.size());
+        for (int i = 0; i < tuples.size(); i++) {
+            assertThat(usernames.get(i)).isEqualTo(tuples.get(i).get(member.username));
+            assertThat(ages.get(i)).isEqualTo(tuples.get(i).get(member.age));
+            assertThat(teamNames.get(i)).isEqualTo(tuples.get(i).get(team.name));
+        }
+        //팀 이름은 두 개만 사전에 들어가고 팀이 없는 회원은 NULL 코드
+        assertThat(teamNames.cardinality()).isEqualTo(2);
+        assertThat(teamNames.code(4)).isEqualTo(DictionaryStringColumn.NULL);
+    }
+
+    @Test
+    public void singleColumn(){
+        ColumnarResult result = columnarQueries.fetch(queryFactory
+                .from(member)
+                .where(member.age.goe(30)), member.age);
+
+        assertThat(result.ints(member.age).toArray()).containsExactlyInAnyOrder(30, 40, 50);
+    }
+
+    //넘긴 쿼리는 바뀌지 않는다
+    @Test
+    public void originalQueryUntouched(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(30));
+        String before = query.toString();
+
+        columnarQueries.fetch(query, member.age);
+
+        assertThat(query.toString()).isEqualTo(before);
+        assertThat(query.fetch()).hasSize(3);
+    }
+
+    @Test
+    public void aggregation(){
+        Tuple expected = queryFactory
+                .select(member.count(), member.age.sum(), member.age.avg(), member.age.max(), member.age.min())
+                .from(member)
+                .fetchOne();
+
+        IntColumn ages = columnarQueries.fetch(queryFactory.from(member), member.age).ints(member.age);
+
+        assertThat(ages.count()).isEqualTo(expected.get(member.count()));
+        assertThat(ages.sum()).isEqualTo(expected.get(member.age.sum()).longValue());
+        assertThat(ages.avg().getAsDouble()).isEqualTo(expected.get(member.age.avg()));
+        assertThat(ages.max().getAsInt()).isEqualTo(expected.get(member.age.max()));
+        assertThat(ages.min().getAsInt()).isEqualTo(expected.get(member.age.min()));
+    }
+
+    @Test
+    public void groupByTeamName(){
+        List<Tuple> expected = queryFactory
+                .select(team.name, member.count(), member.age.sum(), member.age.avg(), member.age.min(), member.age.max())
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name)
+                .fetch();
+
+        ColumnarResult result = columnarQueries.fetch(queryFactory
+                .from(member)
+                .leftJoin(member.team, team), team.name, member.age);
+        IntGroups groups = IntGroups.of(result.strings(team.name), result.ints(member.age));
+
+        assertThat(groups.groups()).hasSize(expected.size());
+        for (Tuple row : expected) {
+            IntGroups.Group group = groups.get(row.get(team.name));
+            assertThat(group.count()).isEqualTo(row.get(member.count()));
+            assertThat(group.sum()).isEqualTo(row.get(member.age.sum()).longValue());
+            assertThat(group.avg()).isEqualTo(row.get(member.age.avg()));
+            assertThat(group.min()).isEqualTo(row.get(member.age.min()));
+            assertThat(group.max()).isEqualTo(row.get(member.age.max()));
+        }
+        assertThat(groups.get("none")).isNull();
+    }
+
+    @Test
+    public void unsupportedType(){
+        assertThatThrownBy(() -> columnarQueries.fetch(queryFactory.from(member), member.id))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void notSelected(){
+        ColumnarResult result = columnarQueries.fetch(queryFactory.from(member), member.age);
+
+        assertThatThrownBy(() -> result.strings(member.username))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.support.FastProjections.*;
+
+@SpringBootTest
+@Transactional
+class FastProjectionsTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("member2", 20));
+        em.persist(new Member("member3", 30));
+    }
+
+    @Test
+    public void beanMatchesProjectionsBean(){
+        List<MemberDto> expected = queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        List<MemberDto> result = queryFactory
+                .select(bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    public void fieldsWithAlias(){
+        List<UserDto> result = queryFactory
+                .select(fields(UserDto.class, member.username.as("name"), member.age))
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(result).extracting("name").containsExactly("member1", "member2", "member3");
+        assertThat(result).extracting("age").containsExactly(10, 20, 30);
+    }
+
+    @Test
+    public void fieldsWithSubQueryAlias(){
+        QMember memberSub = new QMember("memberSub");
+        List<UserDto> result = queryFactory
+                .select(fields(UserDto.class,
+                        member.username.as("name"),
+                        ExpressionUtils.as(JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub), "age")))
+                .from(member)
+                .fetch();
+
+        assertThat(result).extracting("age").containsOnly(30);
+    }
+
+    @Test
+    public void constructorWithPrimitiveParameter(){
+        List<UserDto> result = queryFactory
+                .select(constructor(UserDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        assertThat(result).extracting("name").containsExactly("member1", "member2", "member3");
+
+        //null이 primitive 파라미터로 들어가면 기본값
+        UserDto withNull = constructor(UserDto.class, member.username, member.age).newInstance("member9", null);
+        assertThat(withNull).extracting("age").isEqualTo(0);
+    }
+
+    @Test
+    public void invalidTargets(){
+        assertThatThrownBy(() -> bean(UserDto.class, member.username.as("name")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> constructor(UserDto.class, member.age, member.username))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
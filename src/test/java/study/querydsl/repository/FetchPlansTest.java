@@ -0,0 +1,137 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCounter;
+import study.querydsl.repository.support.FetchPlans;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//배치 페치로 가려지지 않도록 끄고 쿼리 수를 센다
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.default_batch_fetch_size=1")
+@Transactional
+class FetchPlansTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    FetchPlans fetchPlans;
+    @Autowired
+    MemberPagingRepository memberPagingRepository;
+
+    @BeforeEach
+    public void before(){
+        for (int i = 0; i < 5; i++) {
+            Team t = new Team("team" + i);
+            em.persist(t);
+            for (int j = 0; j < 3; j++) {
+                em.persist(new Member("member" + i + j, i * 10 + j, t));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void memberWithTeamInOneQuery(){
+        List<Member> result;
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            result = fetchPlans.fetch(queryFactory
+                    .selectFrom(member)
+                    .where(member.age.goe(20))
+                    .orderBy(member.age.asc())
+                    .offset(1)
+                    .limit(4), Member.WITH_TEAM);
+            result.forEach(m -> m.getTeam().getName());
+
+            assertThat(scope.count()).isEqualTo(1);
+        }
+        assertThat(result).extracting("username")
+                .containsExactly("member21", "member22", "member30", "member31");
+    }
+
+    @Test
+    public void teamWithMembersPagesIdsFirst(){
+        List<Team> result;
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            result = fetchPlans.fetch(queryFactory
+                    .selectFrom(team)
+                    .orderBy(team.name.desc())
+                    .offset(1)
+                    .limit(2), Team.WITH_MEMBERS);
+
+            //id 페이지 1번 + 그래프 1번
+            assertThat(scope.count()).isEqualTo(2);
+        }
+        assertThat(result).extracting("name").containsExactly("team3", "team2");
+        for (Team t : result) {
+            assertThat(Hibernate.isInitialized(t.getMembers())).isTrue();
+            assertThat(t.getMembers()).hasSize(3);
+        }
+    }
+
+    //limit 은 행이 아니라 팀 수에 걸린다
+    @Test
+    public void collectionConditionDoesNotDuplicateRoots(){
+        List<Team> result = fetchPlans.fetch(queryFactory
+                .selectFrom(team)
+                .join(team.members, member)
+                .where(member.age.goe(0))
+                .orderBy(team.name.asc())
+                .limit(3), Team.WITH_MEMBERS);
+
+        assertThat(result).extracting("name").containsExactly("team0", "team1", "team2");
+        assertThat(result).allSatisfy(t -> assertThat(t.getMembers()).hasSize(3));
+    }
+
+    //join 한 컬렉션의 값으로 정렬하면 팀이 처음 나오는 순서
+    @Test
+    public void collectionOrderKeyPagesRoots(){
+        List<Team> result = fetchPlans.fetch(queryFactory
+                .selectFrom(team)
+                .join(team.members, member)
+                .orderBy(member.age.desc())
+                .offset(1)
+                .limit(2), Team.WITH_MEMBERS);
+
+        assertThat(result).extracting("name").containsExactly("team3", "team2");
+    }
+
+    @Test
+    public void teamsWithMembersPage(){
+        Page<Team> page;
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            page = memberPagingRepository.searchTeamsWithMembers("team", PageRequest.of(0, 2));
+            page.getContent().forEach(t -> t.getMembers().size());
+
+            //id 페이지 + 그래프 + count
+            assertThat(scope.count()).isEqualTo(3);
+        }
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting("name").containsExactly("team0", "team1");
+    }
+
+    @Test
+    public void emptyPage(){
+        Page<Team> page = memberPagingRepository.searchTeamsWithMembers("none", PageRequest.of(0, 2));
+
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isZero();
+    }
+}
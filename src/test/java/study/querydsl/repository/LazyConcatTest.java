@@ -0,0 +1,115 @@
+package study.querydsl.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.LazyString;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.LazyConcat;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class LazyConcatTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member(null, 40, teamB));
+    }
+
+    //basicConcat 과 같은 값인데 db 에서는 cast/concat 을 하지 않는다
+    @Test
+    public void sameAsDbConcat(){
+        StringExpression label = member.username.concat("_").concat(member.age.stringValue());
+
+        List<String> expected = queryFactory
+                .select(label)
+                .from(member)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        JPAQuery<LazyString> query = queryFactory
+                .select(LazyConcat.of(label))
+                .from(member)
+                .orderBy(member.id.asc());
+        List<LazyString> result = query.fetch();
+
+        assertThat(query.toString()).doesNotContain("concat").doesNotContain("str(");
+        assertThat(result).extracting(s -> s == null ? null : s.toString()).isEqualTo(expected);
+        assertThat(expected).containsExactly("member1_10", "member2_20", "member3_30", null);
+    }
+
+    //같은 컬럼은 한 번만 select 하고, 상수만 있는 조각도 순서대로 붙는다
+    @Test
+    public void repeatedColumnsAndConstants(){
+        LazyConcat labels = LazyConcat.of("[", member.age, "] ", member.username, "/", member.age);
+
+        assertThat(labels.getArgs()).hasSize(2);
+        LazyString result = queryFactory
+                .select(labels)
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetchOne();
+
+        assertThat(result.toString()).isEqualTo("[10] member1/10");
+        assertThat(result.length()).isEqualTo(16);
+        assertThat(result).isEqualTo(new LazyString("[10] member1/10"));
+    }
+
+    //상수가 다른 두 식을 같이 select 해도 서로 구분된다
+    @Test
+    public void tupleKeys(){
+        LazyConcat dash = LazyConcat.of(member.username, "-", member.age);
+        LazyConcat colon = LazyConcat.of(member.username, ":", member.age);
+
+        Tuple tuple = queryFactory
+                .select(dash, colon)
+                .from(member)
+                .where(member.username.eq("member2"))
+                .fetchOne();
+
+        assertThat(tuple.get(dash).toString()).isEqualTo("member2-20");
+        assertThat(tuple.get(colon).toString()).isEqualTo("member2:20");
+    }
+
+    @Test
+    public void preparedQueryAndJson() throws Exception {
+        List<LazyString> labels = memberQueryRepository.findLabelsByTeam("teamA");
+
+        assertThat(labels).extracting(LazyString::toString).containsExactly("member1_10", "member2_20");
+        assertThat(objectMapper.writeValueAsString(labels)).isEqualTo("[\"member1_10\",\"member2_20\"]");
+        assertThat(objectMapper.writeValueAsString(Map.of("label", new LazyString("a\"b_", 1L))))
+                .isEqualTo("{\"label\":\"a\\\"b_1\"}");
+    }
+}
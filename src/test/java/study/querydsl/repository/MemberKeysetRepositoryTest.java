@@ -0,0 +1,88 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.KeysetPage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberKeysetRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberKeysetRepository memberKeysetRepository;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 23; i++) {
+            //username이 같은 회원을 섞어서 age, id tie-breaker까지 검증
+            em.persist(new Member("member" + (i % 7), i % 3 * 10, teamA));
+        }
+        em.persist(new Member(null, 100));
+    }
+
+    @Test
+    public void keysetPagesMatchOffsetOrder(){
+        List<Member> expected = queryFactory
+                .selectFrom(member)
+                .where(member.username.isNotNull())
+                .orderBy(member.username.desc(), member.age.desc(), member.id.desc())
+                .fetch();
+
+        List<Member> collected = new ArrayList<>();
+        MemberCursor cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<Member, MemberCursor> page = memberKeysetRepository.findPage(cursor, 5, Order.DESC);
+            collected.addAll(page.getContent());
+            cursor = page.getNext();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(5);
+        assertThat(collected).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void ascendingWithCondition(){
+        KeysetPage<Member, MemberCursor> first = memberKeysetRepository
+                .findPage(member.age.eq(0), null, 3, Order.ASC);
+        KeysetPage<Member, MemberCursor> second = memberKeysetRepository
+                .findPage(member.age.eq(0), first.getNext(), 3, Order.ASC);
+
+        //age가 0인 회원: member0 x2, member1 ~ member6
+        assertThat(first.getContent()).extracting("username")
+                .containsExactly("member0", "member0", "member1");
+        assertThat(second.getContent()).extracting("username")
+                .containsExactly("member2", "member3", "member4");
+    }
+
+    @Test
+    public void cursorRoundTrip(){
+        MemberCursor cursor = new MemberCursor("user:with:colon", 30, 7L);
+
+        assertThat(MemberCursor.decode(cursor.encode())).isEqualTo(cursor);
+        assertThatThrownBy(() -> MemberCursor.decode("???"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,155 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.InstrumentedJPAQuery;
+import study.querydsl.repository.support.LazyTotalPage;
+import study.querydsl.repository.support.QuerydslPagingSupport;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MemberPagingRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberPagingRepository memberPagingRepository;
+    @Autowired
+    QuerydslPagingSupport pagingSupport;
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+    }
+
+    @Test
+    public void page(){
+        Page<Member> result = memberPagingRepository.searchMembers(null, PageRequest.of(0, 2));
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getTotalPages()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly("member5", "member4");
+    }
+
+    @Test
+    public void teamNameCondition(){
+        Page<Member> result = memberPagingRepository.searchMembers("teamA", PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting("username")
+                .containsExactly("member2", "member1");
+    }
+
+    @Test
+    public void lazyTotalSkipsCountOnLastPage(){
+        LazyTotalPage<Member> last = memberPagingRepository.searchMembersLazyTotal(null, PageRequest.of(2, 2));
+
+        assertThat(last.hasNext()).isFalse();
+        assertThat(last.isTotalResolved()).isTrue();
+        assertThat(last.getTotal()).isEqualTo(5);
+    }
+
+    @Test
+    public void lazyTotalComputedOnDemand(){
+        LazyTotalPage<Member> first = memberPagingRepository.searchMembersLazyTotal(null, PageRequest.of(0, 2));
+
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.isTotalResolved()).isFalse();
+        assertThat(first.getTotal()).isEqualTo(5);
+        assertThat(first.toPage().getTotalPages()).isEqualTo(3);
+    }
+
+    //count 쿼리에는 order by, fetch가 없어야 하고 조건에 안 쓰는 left fetch join은 빠져야 한다
+    @Test
+    public void countQueryShape(){
+        String withoutCondition = pagingSupport.countQuery(queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .orderBy(member.username.desc())).toString();
+        String withCondition = pagingSupport.countQuery(queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA"))
+                .orderBy(member.username.desc())).toString();
+
+        assertThat(withoutCondition).doesNotContain("order by", "fetch", "join");
+        assertThat(withCondition).contains("inner join member1.team as team")
+                .doesNotContain("order by", "fetch");
+    }
+
+    //distinct 는 컬렉션 fetch join 이 있을 때만 (count 에서 그 join 을 뺐더라도)
+    @Test
+    public void distinctOnlyForCollectionFetch(){
+        String toOne = pagingSupport.countQuery(queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(team.name.eq("teamA"))).toString();
+        JPAQuery<Team> teams = queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, member).fetchJoin();
+        JPAQuery<Long> count = pagingSupport.countQuery(teams);
+
+        assertThat(toOne).doesNotContain("distinct");
+        assertThat(count.toString()).contains("count(distinct team)").doesNotContain("join");
+        assertThat(count.fetchOne()).isEqualTo((long) teams.fetch().size());
+        assertThat(count).isInstanceOf(InstrumentedJPAQuery.class);
+    }
+
+    //남기는 join 이 fetch join 별칭(team)에서 시작하면 그 fetch join 도 남긴다
+    @Test
+    public void retainedJoinKeepsItsSource(){
+        QMember teamMember = new QMember("teamMember");
+        JPAQuery<Member> content = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .leftJoin(team.members, teamMember)
+                .orderBy(member.username.desc());
+
+        JPAQuery<Long> count = pagingSupport.countQuery(content);
+
+        assertThat(count.toString()).contains("left join member1.team as team")
+                .doesNotContain("fetch");
+        assertThat(count.fetchOne()).isEqualTo(queryFactory
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .leftJoin(team.members, teamMember)
+                .fetchOne());
+    }
+
+    @Test
+    public void teams(){
+        Page<Team> result = memberPagingRepository.searchTeams("team", PageRequest.of(0, 1));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting("name").containsExactly("teamA");
+    }
+}
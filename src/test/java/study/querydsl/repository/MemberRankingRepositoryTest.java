@@ -0,0 +1,154 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRankingRepository.Plan;
+import study.querydsl.repository.support.AgeRanks;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+//메모리 정렬 기준을 3건으로 낮춰서 두 방식을 모두 탄다
+@SpringBootTest(properties = "age-rank.in-memory-threshold=3")
+@Transactional
+class MemberRankingRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberRankingRepository memberRankingRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+        em.persist(new Member("member4", 40, teamA));
+        em.persist(new Member("member5", 25));
+        em.persist(new Member("member6", 60));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void ageRankComputedOnPersistAndUpdate(){
+        Member member1 = queryFactory.selectFrom(member).where(member.username.eq("member1")).fetchOne();
+        assertThat(member1.getAgeRank()).isEqualTo(2);
+
+        member1.setAge(45);
+        em.flush();
+        em.clear();
+
+        Integer stored = queryFactory.select(member.ageRank).from(member).where(member.username.eq("member1")).fetchOne();
+        assertThat(stored).isEqualTo(3);
+    }
+
+    //저장된 순위가 complexCase2 의 case 식과 같은 값
+    @Test
+    public void storedRankMatchesCaseExpression(){
+        NumberExpression<Integer> rankPath = AgeRanks.caseOf(member.age);
+
+        List<Integer> mismatches = queryFactory
+                .select(member.ageRank)
+                .from(member)
+                .where(member.ageRank.ne(rankPath))
+                .fetch();
+
+        assertThat(mismatches).isEmpty();
+    }
+
+    @Test
+    public void smallResultSortedInMemory(){
+        double before = plans(Plan.IN_MEMORY);
+
+        List<Member> result = memberRankingRepository.findOrderByAgeRank(member.team.isNotNull().and(member.age.loe(30)), 10);
+
+        assertThat(plans(Plan.IN_MEMORY)).isEqualTo(before + 1);
+        assertThat(result).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(result).isEqualTo(storedOrder(member.team.isNotNull().and(member.age.loe(30)), 10));
+    }
+
+    //기록이 없으면 메모리 정렬을 시도했다가 넘치면 인덱스 정렬로, 그 다음부터는 추정치로 바로 인덱스 정렬
+    @Test
+    public void largeResultUsesStoredRank(){
+        double overflowBefore = plans(Plan.IN_MEMORY_OVERFLOW);
+        double storedBefore = plans(Plan.STORED);
+
+        List<Member> first = memberRankingRepository.findOrderByAgeRank(member.username.startsWith("member"), 4);
+        List<Member> second = memberRankingRepository.findOrderByAgeRank(member.username.startsWith("member"), 4);
+
+        assertThat(plans(Plan.IN_MEMORY_OVERFLOW)).isEqualTo(overflowBefore + 1);
+        assertThat(plans(Plan.STORED)).isEqualTo(storedBefore + 1);
+        assertThat(first).extracting("username").containsExactly("member4", "member6", "member1", "member2");
+        assertThat(second).isEqualTo(first);
+    }
+
+    //limit 이 threshold 보다 작아도 실제 행 수(count)로 추정하므로 다음부터는 stored 에 머문다
+    @Test
+    public void pageSmallerThanThresholdSettlesOnStored(){
+        Predicate condition = member.username.startsWith("member").and(member.age.goe(10));
+        double overflowBefore = plans(Plan.IN_MEMORY_OVERFLOW);
+        double storedBefore = plans(Plan.STORED);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(memberRankingRepository.findOrderByAgeRank(condition, 2))
+                    .isEqualTo(storedOrder(condition, 2));
+        }
+
+        assertThat(plans(Plan.IN_MEMORY_OVERFLOW)).isEqualTo(overflowBefore + 1);
+        assertThat(plans(Plan.STORED)).isEqualTo(storedBefore + 4);
+    }
+
+    //결과가 줄면 stored 로 읽은 행 수가 추정을 끌어내려 다시 메모리 정렬로 돌아온다
+    @Test
+    public void shrinkingResultSwitchesBackToInMemory(){
+        Predicate condition = member.username.startsWith("member").and(member.age.goe(20));
+        memberRankingRepository.findOrderByAgeRank(condition, 10);
+        double storedBefore = plans(Plan.STORED);
+        assertThat(memberRankingRepository.findOrderByAgeRank(condition, 10)).hasSize(5);
+        assertThat(plans(Plan.STORED)).isEqualTo(storedBefore + 1);
+
+        queryFactory.delete(member).where(member.age.goe(30)).execute();
+        em.clear();
+
+        double inMemoryBefore = plans(Plan.IN_MEMORY);
+        for (int i = 0; i < 10 && plans(Plan.IN_MEMORY) == inMemoryBefore; i++) {
+            assertThat(memberRankingRepository.findOrderByAgeRank(condition, 10))
+                    .extracting("username").containsExactly("member2", "member5");
+        }
+        assertThat(plans(Plan.IN_MEMORY)).isEqualTo(inMemoryBefore + 1);
+    }
+
+    private List<Member> storedOrder(Predicate condition, int limit) {
+        return queryFactory
+                .selectFrom(member)
+                .where(condition)
+                .orderBy(member.ageRank.desc(), member.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    private double plans(Plan plan) {
+        return meterRegistry.counter("querydsl.query.plan",
+                "decision", MemberRankingRepository.DECISION, "plan", plan.tag()).count();
+    }
+}
@@ -0,0 +1,115 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberSearchCompiler.TeamFilter;
+import study.querydsl.repository.support.PreparedQueryFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberSearchCompilerTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PreparedQueryFactory preparedQueryFactory;
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+    }
+
+    @Test
+    public void nullConditionsAreDropped(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("");
+
+        List<MemberDto> result = memberQueryRepository.search(condition, 0, 10);
+
+        assertThat(result).extracting("username")
+                .containsExactly("member1", "member2", "member3", "member4", "member5");
+    }
+
+    @Test
+    public void everyTeamFilterReturnsSameRows(){
+        MemberSearchCondition condition = condition("teamB", 35, null, MemberSearchCondition.Sort.AGE_DESC);
+
+        for (int teamCount : new int[]{1, 2, 1_000}) {
+            MemberSearchCompiler compiler = new MemberSearchCompiler(queryFactory, preparedQueryFactory, teamCount, 100, 0.0001);
+            assertThat(compiler.compile(condition).fetch()).extracting("username").containsExactly("member4");
+        }
+        condition.setAgeGoe(null);
+        assertThat(memberQueryRepository.search(condition, 0, 10)).extracting("username")
+                .containsExactly("member4", "member3");
+    }
+
+    @Test
+    public void chooseTeamFilterBySelectivity(){
+        //팀이 많으면(팀 이름 하나가 고르는 비율이 작으면) IN
+        MemberSearchCompiler manyTeams = new MemberSearchCompiler(queryFactory, preparedQueryFactory, 1_000, 100, 0.0001);
+        assertThat(manyTeams.teamFilter(condition("teamA", null, null, null))).isEqualTo(TeamFilter.IN);
+        //회원 쪽 조건이 더 좁으면 EXISTS
+        MemberSearchCondition byUsername = condition("teamA", null, null, null);
+        byUsername.setUsername("member1");
+        assertThat(manyTeams.teamFilter(byUsername)).isEqualTo(TeamFilter.EXISTS);
+        assertThat(manyTeams.compile(byUsername).fetch()).extracting("username").containsExactly("member1");
+
+        //팀이 몇 개 없으면 JOIN
+        MemberSearchCompiler fewTeams = new MemberSearchCompiler(queryFactory, preparedQueryFactory, 2, 100, 0.0001);
+        assertThat(fewTeams.teamFilter(condition("teamA", null, null, null))).isEqualTo(TeamFilter.JOIN);
+        assertThat(fewTeams.teamFilter(condition(null, null, null, null))).isEqualTo(TeamFilter.NONE);
+        //나이 범위가 좁으면(10/100) 팀 쪽(1/2)보다 좁으므로 EXISTS
+        assertThat(fewTeams.teamFilter(condition("teamA", 10, 19, null))).isEqualTo(TeamFilter.EXISTS);
+    }
+
+    @Test
+    public void sameShapeIsCompiledOnce(){
+        MemberSearchCompiler compiler = new MemberSearchCompiler(queryFactory, preparedQueryFactory, 100, 100, 0.0001);
+
+        String jpql = compiler.jpqlOf(condition("teamA", 10, 40, null));
+        compiler.compile(condition("teamA", 10, 40, null)).fetch();
+        compiler.compile(condition("teamB", 20, 30, null)).fetch();
+
+        assertThat(compiler.compiledShapes()).isEqualTo(1);
+        assertThat(compiler.jpqlOf(condition("teamB", 0, 99, null))).isEqualTo(jpql);
+        //값이 아니라 조건의 유무가 달라지면 다른 형태
+        compiler.compile(condition("teamA", 10, null, null)).fetch();
+        assertThat(compiler.compiledShapes()).isEqualTo(2);
+    }
+
+    private static MemberSearchCondition condition(String teamName, Integer ageGoe, Integer ageLoe, MemberSearchCondition.Sort sort) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        if (sort != null) {
+            condition.setSort(sort);
+        }
+        return condition;
+    }
+}
@@ -0,0 +1,149 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ParallelQueryExecutor;
+import study.querydsl.repository.support.ParallelQueryExecutor.FanOut;
+import study.querydsl.repository.support.ParallelQueryExecutor.Handle;
+import study.querydsl.repository.support.ParallelQueryExecutor.Mode;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//작업 스레드는 테스트 트랜잭션 밖에서 읽으므로 데이터를 커밋해두고 끝나면 지운다
+@SpringBootTest
+class ParallelQueryExecutorTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    ParallelQueryExecutor parallelQueryExecutor;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before(){
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("fan-teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member("fan-member" + i, i * 10, teamA));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("fan-")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("fan-")).execute();
+        });
+    }
+
+    @Test
+    public void runIndependentQueriesInParallel(){
+        try (FanOut fanOut = parallelQueryExecutor.fanOut(Duration.ofSeconds(5))) {
+            Handle<List<String>> names = fanOut.submit(qf -> qf
+                    .select(member.username)
+                    .from(member)
+                    .where(member.username.startsWith("fan-"))
+                    .orderBy(member.username.asc())
+                    .limit(2)
+                    .fetch());
+            Handle<Long> total = fanOut.submit(qf -> qf
+                    .select(member.count())
+                    .from(member)
+                    .where(member.username.startsWith("fan-"))
+                    .fetchOne());
+            Handle<String> thread = fanOut.submit(qf -> Thread.currentThread().getName()
+                    + (TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? ":readOnly" : ""));
+
+            fanOut.await();
+
+            assertThat(names.get()).containsExactly("fan-member0", "fan-member1");
+            assertThat(total.get()).isEqualTo(5);
+            assertThat(thread.get()).startsWith("fan-out-").endsWith(":readOnly");
+        }
+    }
+
+    @Test
+    public void timeoutCancelsRemainingQueries(){
+        try (FanOut fanOut = parallelQueryExecutor.fanOut(Duration.ofMillis(200))) {
+            Handle<Object> slow = fanOut.submit(qf -> {
+                sleep(5_000);
+                return null;
+            });
+
+            assertThatThrownBy(fanOut::await).isInstanceOf(QueryTimeoutException.class);
+            assertThat(slow.isCancelled()).isTrue();
+        }
+    }
+
+    @Test
+    public void failurePropagatesAndCancelsOthers(){
+        try (FanOut fanOut = parallelQueryExecutor.fanOut(Duration.ofSeconds(5))) {
+            Handle<Object> slow = fanOut.submit(qf -> {
+                sleep(5_000);
+                return null;
+            });
+            fanOut.submit(qf -> {
+                throw new IllegalStateException("boom");
+            });
+
+            //slow 가 끝나기를 기다리지 않고 먼저 끝난 실패를 바로 던진다
+            long start = System.nanoTime();
+            assertThatThrownBy(fanOut::await)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("boom");
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+            assertThat(slow.isCancelled()).isTrue();
+        }
+    }
+
+    @Test
+    public void snapshotModeRunsInOneTransaction(){
+        try (FanOut fanOut = parallelQueryExecutor.fanOut(Duration.ofSeconds(5), Mode.SNAPSHOT)) {
+            Handle<Long> count = fanOut.submit(qf -> qf.select(member.count()).from(member)
+                    .where(member.username.startsWith("fan-")).fetchOne());
+            Handle<Thread> thread = fanOut.submit(qf -> Thread.currentThread());
+            Handle<Integer> isolation = fanOut.submit(qf -> TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+
+            fanOut.await();
+
+            assertThat(count.get()).isEqualTo(5);
+            //호출 스레드의 트랜잭션 하나에서 실행
+            assertThat(thread.get()).isSameAs(Thread.currentThread());
+            assertThat(isolation.get()).isEqualTo(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.NonUniqueResultException;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ParamNotSetException;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.PreparedQuery;
+import study.querydsl.repository.support.PreparedQueryFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class PreparedQueryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PreparedQueryFactory preparedQueryFactory;
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    public void bindPerCall(){
+        assertThat(memberQueryRepository.findByUsername("member1").getAge()).isEqualTo(10);
+        assertThat(memberQueryRepository.findByUsername("member3").getAge()).isEqualTo(30);
+        assertThat(memberQueryRepository.findByUsername("nobody")).isNull();
+    }
+
+    @Test
+    public void dtoProjection(){
+        List<MemberDto> result = memberQueryRepository.findDtoByTeamAndAge("teamB", 0, 35);
+
+        assertThat(result).extracting("username").containsExactly("member3");
+    }
+
+    //상수와 Param이 섞여 있어도 jpql은 한 번 만들어진 그대로 쓰인다
+    @Test
+    public void constantsAndParams(){
+        Param<Integer> ageGoe = new Param<>(Integer.class, "ageGoe");
+        PreparedQuery<Tuple> prepared = preparedQueryFactory.prepare(queryFactory
+                .select(member.username, member.age)
+                .from(member)
+                .where(member.age.goe(ageGoe), member.username.startsWith("member"))
+                .orderBy(member.age.desc()));
+        String jpql = prepared.getJpql();
+
+        List<Tuple> first = prepared.with(ageGoe, 30).fetch();
+        List<Tuple> second = prepared.with(ageGoe, 15).limit(2).fetch();
+
+        assertThat(first).extracting(t -> t.get(member.age)).containsExactly(40, 30);
+        assertThat(second).extracting(t -> t.get(member.username)).containsExactly("member4", "member3");
+        assertThat(prepared.getJpql()).isSameAs(jpql);
+    }
+
+    @Test
+    public void paramNotSet(){
+        Param<String> username = new Param<>(String.class, "username");
+        PreparedQuery<Member> prepared = preparedQueryFactory.prepare(queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username)));
+
+        assertThatThrownBy(prepared::fetch)
+                .isInstanceOf(ParamNotSetException.class);
+    }
+
+    @Test
+    public void nonUniqueResult(){
+        PreparedQuery<Member> prepared = preparedQueryFactory.prepare(queryFactory.selectFrom(member));
+
+        assertThatThrownBy(() -> prepared.execution().fetchOne())
+                .isInstanceOf(NonUniqueResultException.class);
+        assertThat(prepared.execution().fetchFirst()).isNotNull();
+        //limit 을 지정하면 그 안에서 유일한지 본다
+        assertThat(prepared.execution().limit(1).fetchOne()).isNotNull();
+    }
+}
@@ -0,0 +1,135 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.PreparedQuery;
+import study.querydsl.repository.support.PreparedQueryFactory;
+import study.querydsl.repository.support.ProjectionFolding;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class ProjectionFoldingTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    PreparedQueryFactory preparedQueryFactory;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30));
+    }
+
+    //complexConstant: age + 1 은 age 만 가져와서 계산한다
+    @Test
+    public void foldArithmetic(){
+        NumberExpression<Integer> agePlusOne = member.age.add(Expressions.constant(1));
+        JPAQuery<Tuple> query = queryFactory
+                .select(member.username, agePlusOne)
+                .from(member)
+                .orderBy(member.id.asc());
+
+        JPAQuery<Tuple> folded = ProjectionFolding.fold(query);
+        List<Tuple> result = folded.fetch();
+
+        assertThat(folded.toString()).doesNotContain("+");
+        assertThat(result).isEqualTo(query.fetch());
+        assertThat(result).extracting(t -> t.get(agePlusOne)).containsExactly(11, 21, 31);
+        assertThat(result).extracting(t -> t.get(member.age.add(Expressions.constant(1)))).containsExactly(11, 21, 31);
+    }
+
+    //상수만 다른 쿼리는 같은 jpql (같은 쿼리 플랜)
+    @Test
+    public void constantsShareJpql(){
+        JPAQuery<Tuple> a = ProjectionFolding.fold(queryFactory
+                .select(member.username, Expressions.constant("A"), member.age.multiply(2).add(1))
+                .from(member));
+        JPAQuery<Tuple> b = ProjectionFolding.fold(queryFactory
+                .select(member.username, Expressions.constant("B"), member.age.multiply(3).add(5))
+                .from(member));
+
+        assertThat(a.toString()).isEqualTo(b.toString());
+        Tuple tuple = b.where(member.username.eq("member2")).fetchOne();
+        assertThat(tuple.get(Expressions.constant("B"))).isEqualTo("B");
+        assertThat(tuple.get(member.age.multiply(3).add(5))).isEqualTo(65);
+    }
+
+    //Long 컬럼, null 이면 null
+    @Test
+    public void nullStaysNull(){
+        NumberExpression<Long> teamIdMinusOne = member.team.id.subtract(1L);
+        List<Tuple> expected = queryFactory
+                .select(member.username, teamIdMinusOne)
+                .from(member)
+                .leftJoin(member.team)
+                .orderBy(member.id.asc())
+                .fetch();
+
+        List<Tuple> result = ProjectionFolding.fold(queryFactory
+                .select(member.username, teamIdMinusOne)
+                .from(member)
+                .leftJoin(member.team)
+                .orderBy(member.id.asc())).fetch();
+
+        assertThat(result).isEqualTo(expected);
+        assertThat(result.get(2).get(teamIdMinusOne)).isNull();
+    }
+
+    @Test
+    public void beanWithAlias(){
+        List<MemberDto> result = ProjectionFolding.fold(queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age.negate().as("age")))
+                .from(member)
+                .orderBy(member.id.asc())).fetch();
+
+        assertThat(result).extracting("age").containsExactly(-10, -20, -30);
+    }
+
+    //distinct/group by 에서는 컬럼으로 바꾸지 않는다
+    @Test
+    public void distinctKeepsArithmetic(){
+        JPAQuery<Tuple> folded = ProjectionFolding.fold(queryFactory
+                .select(member.team.id, member.age.multiply(0))
+                .distinct()
+                .from(member));
+
+        assertThat(folded.toString()).contains("*");
+        assertThat(folded.fetch()).hasSize(2);
+    }
+
+    @Test
+    public void preparedQueryFolds(){
+        PreparedQuery<Tuple> prepared = preparedQueryFactory.prepare(queryFactory
+                .select(member.username, member.age.add(100))
+                .from(member)
+                .where(member.username.eq("member3")));
+
+        assertThat(prepared.getJpql()).doesNotContain("+");
+        assertThat(prepared.fetch().get(0).get(member.age.add(100))).isEqualTo(130);
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.QuerydslStreamSupport;
+import study.querydsl.service.BulkInsertService;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class QuerydslStreamSupportTest {
+
+    static final int ROWS = 20_000;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    QuerydslStreamSupport streamSupport;
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        bulkInsertService.persistAll(Stream.of(teamA));
+        bulkInsertService.insertMembers(IntStream.range(0, ROWS)
+                .mapToObj(i -> new MemberRow("member" + i, i % 100, teamA.getId())));
+    }
+
+    //힙 사용량은 GC 시점에 따라 흔들리므로, 힙을 붙잡는 원인인 영속성 컨텍스트의 엔티티 수로 검증한다
+    @Test
+    public void managedEntitiesStayBounded(){
+        AtomicInteger maxManaged = new AtomicInteger();
+        AtomicLong ageSum = new AtomicLong();
+
+        try (Stream<Member> members = streamSupport.stream(queryFactory.selectFrom(member), 200)) {
+            members.forEach(m -> {
+                ageSum.addAndGet(m.getAge());
+                maxManaged.accumulateAndGet(managedEntities(), Math::max);
+            });
+        }
+
+        assertThat(ageSum.get()).isEqualTo(ROWS / 100 * 4950L);
+        assertThat(maxManaged.get()).isLessThanOrEqualTo(1);
+        assertThat(managedEntities()).isZero();
+    }
+
+    @Test
+    public void tupleWithFetchedTeam(){
+        AtomicInteger count = new AtomicInteger();
+
+        try (Stream<Tuple> rows = streamSupport.stream(queryFactory
+                .select(member, team)
+                .from(member)
+                .join(member.team, team))) {
+            rows.forEach(row -> {
+                assertThat(row.get(team).getName()).isEqualTo("teamA");
+                count.incrementAndGet();
+            });
+        }
+
+        assertThat(count.get()).isEqualTo(ROWS);
+        assertThat(managedEntities()).isZero();
+    }
+
+    //처리 중에 지연 로딩한 팀도 fetchSize 행마다 비워진다
+    @Test
+    public void lazyLoadedAssociationsCleared(){
+        AtomicInteger maxManaged = new AtomicInteger();
+
+        try (Stream<Member> members = streamSupport.stream(queryFactory.selectFrom(member), 200)) {
+            members.forEach(m -> {
+                assertThat(m.getTeam().getName()).isEqualTo("teamA");
+                maxManaged.accumulateAndGet(managedEntities(), Math::max);
+            });
+        }
+
+        assertThat(maxManaged.get()).isLessThanOrEqualTo(2);
+        assertThat(managedEntities()).isZero();
+    }
+
+    @Test
+    public void invalidFetchSize(){
+        assertThatThrownBy(() -> streamSupport.stream(queryFactory.selectFrom(member), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private int managedEntities() {
+        return em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+    }
+}
@@ -0,0 +1,195 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.test.StepVerifier;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.ReactiveQueryFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+//작업 스레드는 테스트 트랜잭션 밖에서 읽으므로 데이터를 커밋해두고 끝나면 지운다
+//커넥션 허가는 하나만 두고 시간 제한을 짧게 줄인다
+@SpringBootTest(properties = {
+        "reactive-query.max-connections=1",
+        "reactive-query.idle-timeout=1s"})
+class ReactiveQueryFactoryTest {
+
+    static final int ROWS = 50;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    ReactiveQueryFactory reactiveQueryFactory;
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before(){
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("rx-teamA");
+            em.persist(teamA);
+            for (int i = 0; i < ROWS; i++) {
+                em.persist(new Member("rx-member" + i, i, teamA));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("rx-")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("rx-")).execute();
+        });
+    }
+
+    @Test
+    public void fluxMatchesFetch(){
+        List<String> expected = tx.execute(status -> names().fetch());
+
+        StepVerifier.create(reactiveQueryFactory.flux(names(), 7))
+                .expectNextSequence(expected)
+                .verifyComplete();
+    }
+
+    @Test
+    public void runsOnJdbcWorker(){
+        StepVerifier.create(reactiveQueryFactory.flux(names(), 10)
+                        .map(name -> Thread.currentThread().getName())
+                        .take(1))
+                .assertNext(thread -> assertThat(thread).startsWith("querydsl-jdbc"))
+                .verifyComplete();
+    }
+
+    //요청한 만큼만 내보낸다
+    @Test
+    public void demandDriven(){
+        StepVerifier.create(memberQueryRepository.streamByTeam("rx-teamA"), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(3)
+                .assertNext(dto -> assertThat(dto.getUsername()).isEqualTo("rx-member0"))
+                .expectNextCount(2)
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(ROWS - 3)
+                .verifyComplete();
+    }
+
+    //취소하면 커서와 EntityManager 가 닫힌다
+    @Test
+    public void cancelClosesCursor() throws InterruptedException {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long openBefore = openSessions(statistics);
+
+        StepVerifier.create(reactiveQueryFactory.flux(queryFactory.selectFrom(member)
+                        .where(member.username.startsWith("rx-")), 5), 2)
+                .expectNextCount(2)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (openSessions(statistics) > openBefore && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(openSessions(statistics)).isEqualTo(openBefore);
+    }
+
+    //커서가 허가를 잡고 있으면 다음 구독은 바로 거절되고, 열린 커서는 멈추지 않는다
+    @Test
+    public void openCursorsAreCapped() throws InterruptedException {
+        StepVerifier.create(reactiveQueryFactory.flux(names(), 5), 1)
+                .expectNextCount(1)
+                .then(() -> StepVerifier.create(reactiveQueryFactory.flux(names(), 5))
+                        .expectError(RejectedExecutionException.class)
+                        .verify(Duration.ofMillis(500)))
+                .thenRequest(1)
+                .expectNext("rx-member1")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        awaitConnectionsReleased();
+        assertThat(reactiveQueryFactory.availableConnections()).isEqualTo(1);
+    }
+
+    //요청을 멈춘 구독자는 idle-timeout 뒤에 끝나고 커서가 닫힌다
+    @Test
+    public void stalledSubscriberTimesOut() throws InterruptedException {
+        StepVerifier.create(reactiveQueryFactory.flux(names(), 5), 1)
+                .expectNextCount(1)
+                .expectError(TimeoutException.class)
+                .verify(Duration.ofSeconds(5));
+
+        awaitConnectionsReleased();
+        assertThat(reactiveQueryFactory.availableConnections()).isEqualTo(1);
+    }
+
+    @Test
+    public void mono(){
+        StepVerifier.create(reactiveQueryFactory.mono(queryFactory
+                        .select(member.count())
+                        .from(member)
+                        .where(member.username.startsWith("rx-"))))
+                .expectNext((long) ROWS)
+                .verifyComplete();
+
+        StepVerifier.create(reactiveQueryFactory.mono(queryFactory
+                        .select(member.age)
+                        .from(member)
+                        .where(member.username.eq("nobody"))))
+                .verifyComplete();
+    }
+
+    @Test
+    public void invalidPageSize(){
+        assertThatThrownBy(() -> reactiveQueryFactory.flux(names(), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private JPAQuery<String> names() {
+        return queryFactory
+                .select(member.username)
+                .from(member)
+                .where(member.username.startsWith("rx-"))
+                .orderBy(member.id.asc());
+    }
+
+    private void awaitConnectionsReleased() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (reactiveQueryFactory.availableConnections() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private long openSessions(Statistics statistics) {
+        return statistics.getSessionOpenCount() - statistics.getSessionCloseCount();
+    }
+}
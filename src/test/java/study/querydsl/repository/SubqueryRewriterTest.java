@@ -0,0 +1,232 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.SubqueryRewriter;
+
+import java.util.List;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class SubqueryRewriterTest {
+
+    static final QMember memberSub = new QMember("memberSub");
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    SubqueryRewriter rewriter;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 10, teamA));
+        //평균 나이가 정수가 아니도록 (111 / 6 = 18.5)
+        em.persist(new Member("member6", 1));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void scalarSubqueryBecomesValue(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(select(memberSub.age.max()).from(memberSub)))
+                .orderBy(member.username.asc());
+
+        JPAQuery<Member> rewritten = rewriter.rewrite(query);
+
+        assertThat(rewritten.toString()).doesNotContain("max(");
+        assertThat(rewritten.fetch()).extracting("username").containsExactly("member4");
+        assertSameResult(query, rewritten);
+    }
+
+    //age >= 18.5 -> age >= 19
+    @Test
+    public void fractionalBoundOnIntegerColumn(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.goe(select(memberSub.age.avg()).from(memberSub)))
+                .orderBy(member.username.asc());
+
+        JPAQuery<Member> rewritten = rewriter.rewrite(query);
+
+        assertThat(rewritten.toString()).doesNotContain("avg(");
+        assertThat(rewritten.fetch()).extracting("age").containsExactly(20, 30, 40);
+        assertSameResult(query, rewritten);
+    }
+
+    //avg < age -> age > 18.5 -> age > 18
+    @Test
+    public void subqueryOnLeftSideIsFlipped(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(ExpressionUtils.predicate(Ops.LT, select(memberSub.age.avg()).from(memberSub), member.age))
+                .orderBy(member.username.asc());
+
+        JPAQuery<Member> rewritten = rewriter.rewrite(query);
+
+        assertThat(rewritten.fetch()).extracting("age").containsExactly(20, 30, 40);
+        assertSameResult(query, rewritten);
+    }
+
+    @Test
+    public void uncorrelatedInBecomesValueList(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(10))))
+                .orderBy(member.username.asc());
+
+        JPAQuery<Member> rewritten = rewriter.rewrite(query);
+
+        assertThat(rewritten.toString()).doesNotContain("memberSub");
+        assertThat(rewritten.fetch()).extracting("age").containsExactly(20, 30, 40);
+        assertSameResult(query, rewritten);
+    }
+
+    @Test
+    public void emptyInList(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.gt(100))));
+
+        assertThat(rewriter.rewrite(query).fetch()).isEmpty();
+    }
+
+    //서브쿼리 결과에 null 이 있으면 (팀 없는 member6) not 안에서는 값 목록으로 바꾸지 않는다
+    @Test
+    public void nullInNegatedInKeepsSubquery(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.team.id.in(select(memberSub.team.id).from(memberSub).where(memberSub.age.lt(20))).not());
+
+        JPAQuery<Member> rewritten = rewriter.rewrite(query);
+
+        assertThat(rewritten.toString()).contains("memberSub");
+        assertThat(rewritten.fetch()).isEmpty();
+        assertSameResult(query, rewritten);
+    }
+
+    @Test
+    public void nullInPositiveInIsDropped(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.team.id.in(select(memberSub.team.id).from(memberSub).where(memberSub.age.lt(20)))
+                        .or(member.age.eq(40)))
+                .orderBy(member.username.asc());
+
+        JPAQuery<Member> rewritten = rewriter.rewrite(query);
+
+        assertThat(rewritten.toString()).doesNotContain("memberSub");
+        assertThat(rewritten.fetch()).extracting("username").containsExactly("member1", "member2", "member4", "member5");
+        assertSameResult(query, rewritten);
+    }
+
+    //같은 팀에 나이가 같은 다른 회원이 있는 회원
+    @Test
+    public void correlatedInBecomesSemiJoin(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.in(select(memberSub.age)
+                        .from(memberSub)
+                        .where(memberSub.team.eq(member.team), memberSub.id.ne(member.id))))
+                .orderBy(member.username.asc());
+
+        JPAQuery<Member> rewritten = rewriter.rewrite(query);
+
+        assertThat(rewritten.toString()).contains("select distinct").contains("inner join Member memberSub");
+        assertThat(rewritten.fetch()).extracting("username").containsExactly("member1", "member5");
+        assertSameResult(query, rewritten);
+    }
+
+    @Test
+    public void tooManyValuesBecomesSemiJoin(){
+        SubqueryRewriter inlineOne = new SubqueryRewriter(em, 1);
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.in(select(memberSub.age).from(memberSub).where(memberSub.age.goe(10))))
+                .orderBy(member.username.asc());
+
+        JPAQuery<Member> rewritten = inlineOne.rewrite(query);
+
+        assertThat(rewritten.toString()).contains("inner join Member memberSub");
+        assertSameResult(query, rewritten);
+    }
+
+    //루트 엔티티가 아닌 것을 조회하면 distinct 가 결과를 바꿀 수 있으므로 그대로 둔다
+    @Test
+    public void semiJoinNeedsRootProjection(){
+        JPAQuery<Integer> query = queryFactory
+                .select(member.age)
+                .from(member)
+                .where(member.age.in(select(memberSub.age)
+                        .from(memberSub)
+                        .where(memberSub.team.eq(member.team))))
+                .orderBy(member.age.asc());
+
+        JPAQuery<Integer> rewritten = rewriter.rewrite(query);
+
+        assertThat(rewritten.toString()).isEqualTo(query.toString());
+        assertSameResult(query, rewritten);
+    }
+
+    @Test
+    public void selectSubqueryFilledOnClient(){
+        JPQLQuery<Double> avgAge = select(memberSub.age.avg()).from(memberSub);
+        JPAQuery<Tuple> query = queryFactory
+                .select(member.username, avgAge)
+                .from(member)
+                .orderBy(member.username.asc());
+
+        JPAQuery<Tuple> rewritten = rewriter.rewrite(query);
+
+        assertThat(rewritten.toString()).doesNotContain("avg(");
+        List<Tuple> result = rewritten.fetch();
+        assertThat(result).hasSize(6);
+        assertThat(result.get(0).get(member.username)).isEqualTo("member1");
+        assertThat(result.get(0).get(avgAge)).isEqualTo(18.5);
+    }
+
+    @Test
+    public void originalQueryUntouched(){
+        JPAQuery<Member> query = queryFactory
+                .selectFrom(member)
+                .where(member.age.eq(select(memberSub.age.max()).from(memberSub)));
+        String before = query.toString();
+
+        rewriter.rewrite(query);
+
+        assertThat(query.toString()).isEqualTo(before);
+    }
+
+    private <T> void assertSameResult(JPAQuery<T> original, JPAQuery<T> rewritten) {
+        assertThat(rewritten.fetch()).containsExactlyElementsOf(original.clone().fetch());
+    }
+}
@@ -0,0 +1,92 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCounter;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class TeamMemberBatchLoaderTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    TeamMemberBatchLoader batchLoader;
+
+    @BeforeEach
+    public void before(){
+        for (int i = 0; i < 5; i++) {
+            Team t = new Team("team" + i);
+            em.persist(t);
+            em.persist(new Member("member" + i + "_1", 10, t));
+            em.persist(new Member("member" + i + "_2", 20, t));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    //default_batch_fetch_size 설정만으로도 팀 5개가 in 쿼리 한 번으로 로딩된다
+    @Test
+    public void defaultBatchFetchSize(){
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            for (Member m : queryFactory.selectFrom(member).fetch()) {
+                m.getTeam().getName();
+            }
+            assertThat(scope.count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void loadTeams(){
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            List<Member> members = queryFactory.selectFrom(member).fetch();
+            batchLoader.loadTeams(members);
+
+            for (Member m : members) {
+                assertThat(m.getTeam().getName()).startsWith("team");
+            }
+            scope.assertAtMost(2);
+        }
+    }
+
+    @Test
+    public void initializeMembers(){
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            List<Team> teams = queryFactory.selectFrom(team).fetch();
+            batchLoader.initializeMembers(teams);
+
+            for (Team t : teams) {
+                assertThat(Hibernate.isInitialized(t.getMembers())).isTrue();
+                assertThat(t.getMembers()).hasSize(2);
+            }
+            scope.assertAtMost(2);
+        }
+    }
+
+    @Test
+    public void membersByTeamId(){
+        List<Long> teamIds = queryFactory.select(team.id).from(team).fetch();
+
+        Map<Long, List<Member>> result = batchLoader.membersByTeamId(teamIds);
+
+        assertThat(result).hasSize(5);
+        assertThat(result.values()).allSatisfy(members -> assertThat(members).hasSize(2));
+    }
+}
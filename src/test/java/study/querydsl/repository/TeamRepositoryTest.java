@@ -0,0 +1,83 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.CacheStatistics;
+import study.querydsl.monitoring.QueryCounter;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+//2차 캐시는 커밋 이후에 채워지므로 @Transactional 롤백 대신 트랜잭션을 직접 나눠서 검증한다
+@SpringBootTest
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    CacheStatistics cacheStatistics;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamId;
+
+    @BeforeEach
+    public void before(){
+        tx = new TransactionTemplate(transactionManager);
+        teamId = tx.execute(status -> {
+            Team cached = new Team("cache-teamA");
+            em.persist(cached);
+            return cached.getId();
+        });
+        cacheStatistics.reset();
+    }
+
+    @AfterEach
+    public void after(){
+        tx.executeWithoutResult(status -> em.createQuery("delete from Team t where t.name like 'cache-%'").executeUpdate());
+    }
+
+    @Test
+    public void findByIdHitsSecondLevelCache(){
+        inTx(() -> teamRepository.findById(teamId));
+
+        int queries = countQueries(() -> teamRepository.findById(teamId).orElseThrow());
+
+        assertThat(queries).isZero();
+        assertThat(cacheStatistics.snapshot().getTeam().getHit()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void queryCacheInvalidatedOnWrite(){
+        inTx(() -> teamRepository.findByName("cache-teamA"));
+        assertThat(countQueries(() -> teamRepository.findByName("cache-teamA"))).isZero();
+        assertThat(cacheStatistics.snapshot().getQuery().getHit()).isEqualTo(1);
+
+        //team 테이블에 쓰기가 일어나면 캐시된 결과는 더 이상 쓰이지 않는다
+        tx.executeWithoutResult(status -> em.persist(new Team("cache-teamB")));
+
+        assertThat(countQueries(() -> teamRepository.findByName("cache-teamA"))).isEqualTo(1);
+    }
+
+    private <T> T inTx(Supplier<T> work) {
+        return tx.execute(status -> work.get());
+    }
+
+    private int countQueries(Supplier<?> work) {
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            inTx(work);
+            return scope.count();
+        }
+    }
+}
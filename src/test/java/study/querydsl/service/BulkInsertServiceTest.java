@@ -0,0 +1,92 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRow;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class BulkInsertServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    BulkInsertService bulkInsertService;
+
+    @Test
+    public void insertMembers(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        bulkInsertService.persistAll(Stream.of(teamA, teamB));
+
+        long inserted = bulkInsertService.insertMembers(IntStream.range(0, 2_500)
+                .mapToObj(i -> new MemberRow("member" + i, i % 50, i % 2 == 0 ? teamA.getId() : teamB.getId())));
+
+        assertThat(inserted).isEqualTo(2_500);
+        //chunk 마다 clear 되므로 영속성 컨텍스트에 남아있지 않다
+        assertThat(em.contains(teamA)).isFalse();
+
+        List<Long> counts = queryFactory
+                .select(member.count())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+        assertThat(counts).containsExactly(1_250L, 1_250L);
+    }
+
+    //150건에 시퀀스 호출은 많아야 2번 (allocationSize 100), id 는 할당받은 구간 안에서 연속으로 나간다
+    @Test
+    public void idsAreAllocatedFromPool(){
+        List<Member> members = IntStream.range(0, 150)
+                .mapToObj(i -> new Member("member" + i, i))
+                .toList();
+        long before = sequenceValue();
+
+        bulkInsertService.persistAll(members.stream(), 40);
+
+        assertThat(sequenceIncrement()).isEqualTo(100);
+        assertThat((sequenceValue() - before) / 100).isLessThanOrEqualTo(2);
+
+        List<Long> ids = members.stream().map(Member::getId).sorted().toList();
+        assertThat(ids).doesNotContainNull().doesNotHaveDuplicates();
+        long runs = 1 + IntStream.range(1, ids.size()).filter(i -> ids.get(i) != ids.get(i - 1) + 1).count();
+        assertThat(runs).isLessThanOrEqualTo(3);
+        assertThat(queryFactory.select(member.count()).from(member).fetchOne()).isEqualTo(150L);
+    }
+
+    private long sequenceValue() {
+        return ((Number) em.createNativeQuery(
+                "select base_value from information_schema.sequences where sequence_name = 'MEMBER_SEQ'")
+                .getSingleResult()).longValue();
+    }
+
+    private long sequenceIncrement() {
+        return ((Number) em.createNativeQuery(
+                "select increment from information_schema.sequences where sequence_name = 'MEMBER_SEQ'")
+                .getSingleResult()).longValue();
+    }
+
+    @Test
+    public void invalidChunkSize(){
+        assertThatThrownBy(() -> bulkInsertService.persistAll(Stream.empty(), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,139 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.monitoring.QueryCounter;
+import study.querydsl.service.BulkMutationService.SyncMode;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+
+//chunk 동작을 보기 위해 chunk 크기를 2로 줄인다
+@SpringBootTest(properties = "bulk-mutation.chunk-size=2")
+@Transactional
+class BulkMutationServiceTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    BulkMutationService bulkMutationService;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    public void before(){
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, i <= 3 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void shiftAgeInChunks(){
+        try (QueryCounter.Scope scope = QueryCounter.start()) {
+            long updated = bulkMutationService.shiftAge(member.age.goe(20), 100);
+
+            assertThat(updated).isEqualTo(4);
+            //4건을 2건씩 -> update 2번
+            int updates = scope.countsByShape().entrySet().stream()
+                    .filter(e -> e.getKey().toLowerCase().startsWith("update"))
+                    .mapToInt(e -> e.getValue())
+                    .sum();
+            assertThat(updates).isEqualTo(2);
+        }
+
+        //바뀐 나이가 조건(age >= 20)에 다시 걸려도 한 번만 더해진다
+        List<Integer> ages = queryFactory
+                .select(member.age)
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+        assertThat(ages).containsExactly(10, 120, 130, 140, 150);
+    }
+
+    //벌크 update 는 @PreUpdate 를 거치지 않지만 ageRank 도 같이 바뀐다
+    @Test
+    public void shiftAgeUpdatesAgeRank(){
+        bulkMutationService.shiftAge(member.age.loe(20), 15);
+
+        List<Member> members = queryFactory
+                .selectFrom(member)
+                .orderBy(member.username.asc())
+                .fetch();
+        for (Member m : members) {
+            assertThat(m.getAgeRank()).isEqualTo(Member.rankOf(m.getAge()));
+        }
+        assertThat(members).extracting("ageRank").containsExactly(1, 3, 1, 3, 3);
+    }
+
+    @Test
+    public void evictManagedMembers(){
+        Member member1 = findMember("member1");
+
+        bulkMutationService.shiftAge(member.username.eq("member1"), 1, SyncMode.EVICT);
+
+        assertThat(em.contains(member1)).isFalse();
+        assertThat(member1.getAge()).isEqualTo(10);
+        assertThat(findMember("member1").getAge()).isEqualTo(11);
+    }
+
+    @Test
+    public void refreshManagedMembers(){
+        Member member1 = findMember("member1");
+        Member member2 = findMember("member2");
+
+        bulkMutationService.shiftAge(member.username.eq("member1"), 1, SyncMode.REFRESH);
+
+        assertThat(em.contains(member1)).isTrue();
+        assertThat(member1.getAge()).isEqualTo(11);
+        //대상이 아닌 회원은 건드리지 않는다
+        assertThat(em.contains(member2)).isTrue();
+    }
+
+    @Test
+    public void reassignTeamRefreshesMembersCollections(){
+        Team a = em.find(Team.class, teamA.getId());
+        Team b = em.find(Team.class, teamB.getId());
+        assertThat(a.getMembers()).hasSize(3);
+        assertThat(b.getMembers()).hasSize(2);
+
+        long updated = bulkMutationService.reassignTeam(member.team.eq(a), b.getId(), SyncMode.REFRESH);
+
+        assertThat(updated).isEqualTo(3);
+        assertThat(a.getMembers()).isEmpty();
+        assertThat(b.getMembers()).hasSize(5);
+    }
+
+    @Test
+    public void purgeEvictsDeletedMembers(){
+        Member member5 = findMember("member5");
+
+        long deleted = bulkMutationService.purge(member.age.gt(30));
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(em.contains(member5)).isFalse();
+        assertThat(queryFactory.selectFrom(member).fetch()).extracting("username")
+                .containsExactlyInAnyOrder("member1", "member2", "member3");
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member).where(member.username.eq(username)).fetchOne();
+    }
+}
@@ -0,0 +1,226 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStats;
+import study.querydsl.repository.TeamStatsRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.entity.QTeamStats.teamStats;
+
+//통계는 커밋 직전에 반영되므로 @Transactional 롤백 대신 트랜잭션을 직접 나눠서 검증한다
+@SpringBootTest
+class TeamStatsMaintainerTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+    @Autowired
+    TeamStatsReconciler teamStatsReconciler;
+    @Autowired
+    BulkMutationService bulkMutationService;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    public void before(){
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("stats-teamA");
+            Team teamB = new Team("stats-teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("stats-member1", 10, teamA));
+            em.persist(new Member("stats-member2", 20, teamA));
+            em.persist(new Member("stats-member3", 30, teamB));
+            em.persist(new Member("stats-member4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        tx.executeWithoutResult(status -> {
+            queryFactory.delete(member).where(member.username.startsWith("stats-")).execute();
+            queryFactory.delete(teamStats).where(teamStats.teamName.startsWith("stats-")).execute();
+            queryFactory.delete(team).where(team.name.startsWith("stats-")).execute();
+        });
+    }
+
+    @Test
+    public void statsAfterInsert(){
+        TeamStats a = stats(teamAId);
+        assertThat(a.getTeamName()).isEqualTo("stats-teamA");
+        assertThat(a.getMemberCount()).isEqualTo(2);
+        assertThat(a.getAgeSum()).isEqualTo(30);
+        assertThat(a.getAgeAvg()).isEqualTo(15.0);
+        assertThat(a.getAgeMin()).isEqualTo(10);
+        assertThat(a.getAgeMax()).isEqualTo(20);
+
+        assertThat(teamStatsRepository.findByTeamName("stats-teamB"))
+                .extracting("memberCount", "ageSum")
+                .containsExactly(tuple(2L, 70L));
+    }
+
+    @Test
+    public void changeAgeAndTeam(){
+        tx.executeWithoutResult(status -> {
+            Member member1 = findMember("stats-member1");
+            member1.setAge(50);
+            //최대값(40)을 가진 회원이 빠진다
+            Member member4 = findMember("stats-member4");
+            member4.setTeam(em.find(Team.class, teamAId));
+        });
+
+        TeamStats a = stats(teamAId);
+        assertThat(a.getMemberCount()).isEqualTo(3);
+        assertThat(a.getAgeSum()).isEqualTo(110);
+        assertThat(a.getAgeMin()).isEqualTo(20);
+        assertThat(a.getAgeMax()).isEqualTo(50);
+
+        TeamStats b = stats(teamBId);
+        assertThat(b.getMemberCount()).isEqualTo(1);
+        assertThat(b.getAgeMin()).isEqualTo(30);
+        assertThat(b.getAgeMax()).isEqualTo(30);
+    }
+
+    @Test
+    public void deleteMembers(){
+        tx.executeWithoutResult(status -> {
+            em.remove(findMember("stats-member3"));
+            em.remove(findMember("stats-member4"));
+        });
+
+        TeamStats b = stats(teamBId);
+        assertThat(b.getMemberCount()).isZero();
+        assertThat(b.getAgeAvg()).isNull();
+        assertThat(b.getAgeMin()).isNull();
+    }
+
+    @Test
+    public void rollbackDiscardsDeltas(){
+        tx.executeWithoutResult(status -> {
+            findMember("stats-member1").setAge(99);
+            status.setRollbackOnly();
+        });
+
+        assertThat(stats(teamAId).getAgeMax()).isEqualTo(20);
+    }
+
+    @Test
+    public void bulkMutationRecomputesTeams(){
+        bulkMutationService.reassignTeam(member.username.eq("stats-member1"), teamBId);
+
+        assertThat(stats(teamAId).getMemberCount()).isEqualTo(1);
+        assertThat(stats(teamBId).getMemberCount()).isEqualTo(3);
+        assertThat(stats(teamBId).getAgeMin()).isEqualTo(10);
+    }
+
+    @Test
+    public void reconcileFixesDrift(){
+        //이벤트를 거치지 않는 변경
+        tx.executeWithoutResult(status -> em
+                .createNativeQuery("update member set age = 70, age_rank = 3 where username = 'stats-member2'")
+                .executeUpdate());
+
+        Integer drifted = tx.execute(status -> teamStatsReconciler.reconcile());
+
+        assertThat(drifted).isGreaterThanOrEqualTo(1);
+        assertThat(stats(teamAId).getAgeMax()).isEqualTo(70);
+        assertThat(tx.execute(status -> teamStatsReconciler.reconcile())).isZero();
+    }
+
+    //통계 행이 없는 팀(이 기능 전에 만든 팀)에 두 트랜잭션이 동시에 첫 회원을 넣어도 둘 다 커밋된다
+    @Test
+    public void concurrentFirstMembersOfTeamWithoutStats() throws Exception {
+        Long teamCId = tx.execute(status -> {
+            Team teamC = new Team("stats-teamC");
+            em.persist(teamC);
+            return teamC.getId();
+        });
+        tx.executeWithoutResult(status -> queryFactory.delete(teamStats).where(teamStats.teamId.eq(teamCId)).execute());
+
+        CountDownLatch flushed = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> inserts = new ArrayList<>();
+            for (int i = 1; i <= 2; i++) {
+                Member newMember = new Member("stats-memberC" + i, i * 10);
+                inserts.add(executor.submit(() -> tx.executeWithoutResult(status -> {
+                    newMember.setTeam(em.getReference(Team.class, teamCId));
+                    em.persist(newMember);
+                    em.flush();
+                    //둘 다 통계 행이 없는 상태에서 커밋을 시작하게 한다
+                    flushed.countDown();
+                    await(flushed);
+                })));
+            }
+            for (Future<?> insert : inserts) {
+                insert.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        TeamStats c = stats(teamCId);
+        assertThat(c.getMemberCount()).isEqualTo(2);
+        assertThat(c.getAgeSum()).isEqualTo(30);
+        assertThat(c.getAgeMin()).isEqualTo(10);
+        assertThat(c.getAgeMax()).isEqualTo(20);
+    }
+
+    //팀을 만들면 회원이 없어도 통계 행이 생긴다
+    @Test
+    public void statsCreatedWithTeam(){
+        Long teamCId = tx.execute(status -> {
+            Team teamC = new Team("stats-teamC");
+            em.persist(teamC);
+            return teamC.getId();
+        });
+
+        assertThat(stats(teamCId).getMemberCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private TeamStats stats(Long teamId) {
+        return tx.execute(status -> teamStatsRepository.findByTeamId(teamId).orElseThrow());
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member).where(member.username.eq(username)).fetchOne();
+    }
+}